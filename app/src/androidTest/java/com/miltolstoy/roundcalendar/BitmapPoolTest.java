@@ -0,0 +1,73 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class BitmapPoolTest {
+
+    private Bitmap.Config defaultConfig = Bitmap.Config.ARGB_8888;
+
+    @Test
+    public void reusesReleasedBitmap() {
+        BitmapPool pool = new BitmapPool(BitmapPool.DEFAULT_BYTE_BUDGET);
+        Bitmap bitmap = pool.acquire(100, 100, defaultConfig);
+        pool.release(bitmap);
+        assertSame(pool.acquire(100, 100, defaultConfig), bitmap);
+        assertEquals(pool.getHitCount(), 1);
+        assertEquals(pool.getMissCount(), 1);
+    }
+
+    @Test
+    public void erasesReusedBitmap() {
+        BitmapPool pool = new BitmapPool(BitmapPool.DEFAULT_BYTE_BUDGET);
+        Bitmap bitmap = pool.acquire(10, 10, defaultConfig);
+        bitmap.eraseColor(Color.RED);
+        pool.release(bitmap);
+        assertEquals(pool.acquire(10, 10, defaultConfig).getPixel(5, 5), Color.TRANSPARENT);
+    }
+
+    @Test
+    public void differentSizeNotReused() {
+        BitmapPool pool = new BitmapPool(BitmapPool.DEFAULT_BYTE_BUDGET);
+        Bitmap bitmap = pool.acquire(100, 100, defaultConfig);
+        pool.release(bitmap);
+        assertNotSame(pool.acquire(100, 200, defaultConfig), bitmap);
+        assertEquals(pool.getMissCount(), 2);
+    }
+
+    @Test
+    public void budgetExceeded() {
+        BitmapPool pool = new BitmapPool(100 * 100 * 4);
+        Bitmap first = pool.acquire(100, 100, defaultConfig);
+        Bitmap second = pool.acquire(100, 100, defaultConfig);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(pool.getPooledBytes(), 100 * 100 * 4);
+        assertSame(pool.acquire(100, 100, defaultConfig), second);
+        assertNotSame(pool.acquire(100, 100, defaultConfig), first);
+    }
+}
@@ -31,6 +31,8 @@ import java.util.List;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 public class ClockWidgetTest {
@@ -152,6 +154,25 @@ public class ClockWidgetTest {
         assertThat(new ClockWidget(defaultScreenSize).getDigitsCoordinates(), is(expCoordinates));
     }
 
+    @Test
+    public void getHourMarkerLinesMatchCoordinates() {
+        ClockWidget widget = new ClockWidget(defaultScreenSize);
+        float[] lines = widget.getHourMarkerLines();
+        List<List<Point>> markers = widget.getHourMarkersCoordinates();
+        assertEquals(lines.length, markers.size() * 4);
+        for (int i = 0; i < markers.size(); i++) {
+            assertEquals(lines[i * 4], markers.get(i).get(0).x, 0);
+            assertEquals(lines[i * 4 + 3], markers.get(i).get(1).y, 0);
+        }
+    }
+
+    @Test
+    public void obtainSharesSameSizeWidget() {
+        ClockWidget widget = ClockWidget.obtain(new Point(1000, 2000));
+        assertSame(ClockWidget.obtain(new Point(1000, 2000)), widget);
+        assertNotSame(ClockWidget.obtain(new Point(2000, 1000)), widget);
+    }
+
     @Test
     public void getDateCoordinates() {
         assertEquals(new ClockWidget(defaultScreenSize).getDateCoordinates(), new Point(27, 66));
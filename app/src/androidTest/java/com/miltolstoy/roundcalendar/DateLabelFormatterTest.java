@@ -0,0 +1,110 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import org.junit.Test;
+
+import java.text.DateFormatSymbols;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DateLabelFormatterTest {
+
+    @Test
+    public void formatsDate() {
+        DateLabelFormatter formatter = new DateLabelFormatter();
+        formatter.setDay(getTime(2020, Calendar.MARCH, 7, 0, 0));
+        assertEquals(new String(formatter.getDate(), 0, formatter.getDateLength()), "07.03.2020");
+        formatter.setDay(getTime(2021, Calendar.DECEMBER, 31, 0, 0));
+        assertEquals(new String(formatter.getDate(), 0, formatter.getDateLength()), "31.12.2021");
+    }
+
+    @Test
+    public void formatsWeekday() {
+        DateLabelFormatter formatter = new DateLabelFormatter();
+        formatter.setDay(getTime(2020, Calendar.MARCH, 7, 0, 0));
+        String expected = new DateFormatSymbols().getShortWeekdays()[Calendar.SATURDAY];
+        assertEquals(new String(formatter.getWeekday()), expected);
+    }
+
+    @Test
+    public void reusesLabelsForSameDay() {
+        DateLabelFormatter formatter = new DateLabelFormatter();
+        long day = getTime(2020, Calendar.MARCH, 7, 0, 0);
+        formatter.setDay(day);
+        char[] date = formatter.getDate();
+        char[] weekday = formatter.getWeekday();
+        formatter.setDay(day);
+        assertSame(formatter.getDate(), date);
+        assertSame(formatter.getWeekday(), weekday);
+    }
+
+    @Test
+    public void refreshesWeekdayOnLocaleChange() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            DateLabelFormatter formatter = new DateLabelFormatter();
+            long day = getTime(2020, Calendar.MARCH, 7, 0, 0);
+            Locale.setDefault(Locale.US);
+            formatter.setDay(day);
+            assertEquals(new String(formatter.getWeekday()), "Sat");
+            Locale.setDefault(Locale.GERMANY);
+            formatter.setDay(day);
+            assertEquals(new String(formatter.getWeekday()),
+                    new DateFormatSymbols(Locale.GERMANY).getShortWeekdays()[Calendar.SATURDAY]);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void refreshesLabelsOnZoneChange() {
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            DateLabelFormatter formatter = new DateLabelFormatter();
+            formatter.setDay(getTime(2020, Calendar.MARCH, 7, 0, 0));
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            formatter.setDay(getTime(2020, Calendar.MARCH, 8, 0, 0));
+            assertEquals(new String(formatter.getDate(), 0, formatter.getDateLength()), "08.03.2020");
+            assertEquals(new String(formatter.getWeekday()),
+                    new DateFormatSymbols().getShortWeekdays()[Calendar.SUNDAY]);
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    public void formatsTime() {
+        assertEquals(DateLabelFormatter.formatTime(getTime(2020, Calendar.MARCH, 7, 9, 5)), "09:05");
+        assertEquals(DateLabelFormatter.formatDateTime(getTime(2020, Calendar.MARCH, 7, 23, 59)),
+                "07.03.2020 23:59");
+    }
+
+    private static long getTime(int year, int month, int day, int hours, int minutes) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(year, month, day, hours, minutes, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Color;
+import android.graphics.Point;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventArcBatchTest {
+
+    private final ClockWidget clockWidget = new ClockWidget(new Point(1000, 2000));
+
+    @Test
+    public void adjacentEventsShareLayer() {
+        EventArcBatch batch = new EventArcBatch(clockWidget);
+        assertEquals(batch.add(clockWidget.getEventDegrees(9 * 60, 10 * 60), Color.RED), 0);
+        assertEquals(batch.add(clockWidget.getEventDegrees(10 * 60, 11 * 60), Color.RED), 0);
+        assertEquals(batch.add(clockWidget.getEventDegrees(8 * 60, 9 * 60), Color.BLUE), 0);
+        assertEquals(batch.getLayerCount(), 1);
+    }
+
+    @Test
+    public void overlappingEventsAreLayered() {
+        EventArcBatch batch = new EventArcBatch(clockWidget);
+        assertEquals(batch.add(clockWidget.getEventDegrees(9 * 60, 11 * 60), Color.RED), 0);
+        assertEquals(batch.add(clockWidget.getEventDegrees(10 * 60, 12 * 60), Color.RED), 1);
+        assertEquals(batch.add(clockWidget.getEventDegrees(10 * 60 + 30, 13 * 60), Color.RED), 2);
+        assertEquals(batch.add(clockWidget.getEventDegrees(12 * 60, 14 * 60), Color.RED), 3);
+        assertEquals(batch.add(clockWidget.getEventDegrees(15 * 60, 16 * 60), Color.RED), 0);
+        assertEquals(batch.getLayerCount(), 4);
+    }
+
+    @Test
+    public void eventsOverMidnightOverlap() {
+        EventArcBatch batch = new EventArcBatch(clockWidget);
+        assertEquals(batch.add(clockWidget.getEventDegrees(23 * 60, 60), Color.RED), 0);
+        assertEquals(batch.add(clockWidget.getEventDegrees(30, 2 * 60), Color.RED), 1);
+    }
+
+    @Test
+    public void drawCallsArePerColor() {
+        EventArcBatch batch = new EventArcBatch(clockWidget);
+        int[] colors = {Color.RED, Color.GREEN, Color.BLUE};
+        for (int i = 0; i < 96; i++) {
+            batch.add(clockWidget.getEventDegrees(i * 15, i * 15 + 15), colors[i % colors.length]);
+        }
+        assertEquals(batch.getEventCount(), 96);
+        assertEquals(batch.getLayerCount(), 1);
+        assertEquals(batch.getPathCount(), 2 * colors.length);
+    }
+}
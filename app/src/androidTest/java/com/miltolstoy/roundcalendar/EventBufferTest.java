@@ -0,0 +1,120 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.graphics.Color;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.miltolstoy.roundcalendar.Logging.TAG;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventBufferTest {
+
+    private static final long defaultStart = 1577872800000L; // 01.01.2020 10:00 UTC
+
+    @Test
+    public void fromCursorWithEndTime() {
+        MatrixCursor cursor = createCursor();
+        cursor.addRow(new Object[] {"title", defaultStart, defaultStart + DateUtils.HOUR_IN_MILLIS, null, 0,
+                Color.BLACK, defaultStart, defaultStart + DateUtils.HOUR_IN_MILLIS});
+        EventBuffer buffer = EventBuffer.fromCursor(cursor);
+        assertEquals(buffer.getSize(), 1);
+        assertEquals(buffer.getTitle(0), "title");
+        assertEquals(buffer.getBegin(0), defaultStart);
+        assertEquals(buffer.getEnd(0), defaultStart + DateUtils.HOUR_IN_MILLIS);
+        assertEquals(buffer.getColor(0), Color.BLACK);
+        assertFalse(buffer.isAllDay(0));
+    }
+
+    @Test
+    public void fromCursorWithDuration() {
+        MatrixCursor cursor = createCursor();
+        cursor.addRow(new Object[] {"title", defaultStart, null, "P1H30M", 1, Color.BLACK, defaultStart,
+                defaultStart + DateUtils.DAY_IN_MILLIS});
+        EventBuffer buffer = EventBuffer.fromCursor(cursor);
+        assertEquals(buffer.getEnd(0), defaultStart + 90 * DateUtils.MINUTE_IN_MILLIS);
+        assertTrue(buffer.isAllDay(0));
+    }
+
+    @Test
+    public void sameAsEvent() {
+        MatrixCursor cursor = createCursor();
+        cursor.addRow(new Object[] {"title", defaultStart, defaultStart + DateUtils.HOUR_IN_MILLIS, null, 0,
+                Color.GREEN, defaultStart, defaultStart + DateUtils.HOUR_IN_MILLIS});
+        Event event = new Event("title", Long.toString(defaultStart),
+                Long.toString(defaultStart + DateUtils.HOUR_IN_MILLIS), null, "0", Color.GREEN);
+        EventBuffer buffer = EventBuffer.fromCursor(cursor);
+        assertEquals(buffer.toEvent(0), event);
+        assertEquals(buffer.getStartMinuteOfDay(0), event.getStartMinuteOfDay());
+        assertEquals(buffer.getFinishMinuteOfDay(0), event.getFinishMinuteOfDay());
+    }
+
+    // Logs ingestion time of thousands of rows read as strings and read typed. Timings depend on the device load and
+    // are not asserted.
+    @Test
+    public void ingestionBenchmark() {
+        final int rows = 5000;
+        MatrixCursor cursor = createCursor();
+        for (int i = 0; i < rows; i++) {
+            long start = defaultStart + i * DateUtils.MINUTE_IN_MILLIS;
+            cursor.addRow(new Object[] {"title " + i, start, (i % 2 == 0) ? start + DateUtils.HOUR_IN_MILLIS : null,
+                    (i % 2 == 0) ? null : "PT1H", i % 10 == 0 ? 1 : 0, Color.BLUE, start,
+                    start + DateUtils.HOUR_IN_MILLIS});
+        }
+
+        long stringStart = SystemClock.elapsedRealtimeNanos();
+        List<Event> events = readAsStrings(cursor);
+        long stringNanos = SystemClock.elapsedRealtimeNanos() - stringStart;
+
+        long typedStart = SystemClock.elapsedRealtimeNanos();
+        EventBuffer buffer = EventBuffer.fromCursor(cursor);
+        long typedNanos = SystemClock.elapsedRealtimeNanos() - typedStart;
+
+        Log.i(TAG, "Ingestion of " + rows + " rows, ms: strings " + stringNanos / 1000000 + ", typed " +
+                typedNanos / 1000000);
+        assertEquals(buffer.getSize(), events.size());
+        assertEquals(buffer.toEvent(rows - 1), events.get(rows - 1));
+    }
+
+    private static MatrixCursor createCursor() {
+        return new MatrixCursor(EventBuffer.PROJECTION);
+    }
+
+    // previous cursor ingestion: every column read as string and parsed back
+    private static List<Event> readAsStrings(Cursor cursor) {
+        List<Event> events = new ArrayList<>();
+        cursor.moveToFirst();
+        do {
+            events.add(new Event(cursor.getString(0), cursor.getString(1), cursor.getString(2), cursor.getString(3),
+                    cursor.getString(4), Integer.parseInt(cursor.getString(5))));
+        } while (cursor.moveToNext());
+        return events;
+    }
+}
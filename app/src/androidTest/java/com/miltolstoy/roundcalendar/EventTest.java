@@ -71,6 +71,18 @@ public class EventTest {
         assertEquals(event.getFinishTime(), "13:20");
     }
 
+    @Test
+    public void getStartMinuteOfDay() {
+        Event event = new Event(defaultTitle, "123456789", defaultFinishStr, defaultDurationStr, defaultAllDayStr);
+        assertEquals(event.getStartMinuteOfDay(), 13 * 60 + 17);
+    }
+
+    @Test
+    public void getFinishMinuteOfDay() {
+        Event event = new Event(defaultTitle, defaultStartStr, "987654321", defaultDurationStr, defaultAllDayStr);
+        assertEquals(event.getFinishMinuteOfDay(), 13 * 60 + 20);
+    }
+
     @Test
     public void getFinishTimeUsingDuration() {
         Event event = new Event(defaultTitle, "123456789", null, "P1H30M", defaultAllDayStr);
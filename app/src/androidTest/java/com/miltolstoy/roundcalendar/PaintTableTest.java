@@ -0,0 +1,96 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.miltolstoy.roundcalendar.Logging.TAG;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class PaintTableTest {
+
+    private ClockWidget defaultWidget = new ClockWidget(new Point(1000, 2000));
+
+    @Test
+    public void eventArcPaintReused() {
+        PaintTable table = new PaintTable(defaultWidget);
+        Paint paint = table.getEventArcPaint(Color.GREEN);
+        assertSame(table.getEventArcPaint(Color.GREEN), paint);
+        assertNotSame(table.getEventArcPaint(Color.RED), paint);
+        assertEquals(paint.getColor(), Color.GREEN);
+    }
+
+    @Test
+    public void eventVariantsDoNotChangeTemplate() {
+        PaintTable table = new PaintTable(defaultWidget);
+        int templateColor = table.get(PaintTable.Type.EVENT_LINE).getColor();
+        table.getEventArcPaint(Color.GREEN);
+        table.getEventSeparatorPaint(Color.GREEN);
+        assertEquals(table.get(PaintTable.Type.EVENT_LINE).getColor(), templateColor);
+        assertEquals(table.getDefaultEventColor(), templateColor);
+    }
+
+    @Test
+    public void obtainSharesTable() {
+        assertSame(PaintTable.obtain(defaultWidget), PaintTable.obtain(defaultWidget));
+    }
+
+    // Logs string map and enum table lookup times side by side. Timings depend on the device load and are not asserted.
+    @Test
+    public void lookupBenchmark() {
+        final int iterations = 1000000;
+        PaintTable table = new PaintTable(defaultWidget);
+        Map<String, Paint> map = new HashMap<>();
+        String[] keys = {"dots", "fill", "border", "hand", "smallDigits", "bigDigits", "date", "eventLine",
+                "sleepEventLine", "title"};
+        PaintTable.Type[] types = PaintTable.Type.values();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], table.get(types[i]));
+        }
+
+        long mapFlags = 0;
+        long mapStart = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < iterations; i++) {
+            mapFlags += map.get(keys[i % keys.length]).getFlags();
+        }
+        long mapNanos = SystemClock.elapsedRealtimeNanos() - mapStart;
+
+        long tableFlags = 0;
+        long tableStart = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < iterations; i++) {
+            tableFlags += table.get(types[i % types.length]).getFlags();
+        }
+        long tableNanos = SystemClock.elapsedRealtimeNanos() - tableStart;
+
+        Log.i(TAG, "Paint lookup, ns/op: map " + (double) mapNanos / iterations + ", table " +
+                (double) tableNanos / iterations);
+        assertEquals(tableFlags, mapFlags);
+    }
+}
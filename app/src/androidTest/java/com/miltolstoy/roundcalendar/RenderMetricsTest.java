@@ -0,0 +1,83 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RenderMetricsTest {
+
+    @Before
+    public void setUp() {
+        RenderMetrics.reset();
+    }
+
+    @Test
+    public void bucketsAreFixed() {
+        assertEquals(RenderMetrics.bucketOf(TimeUnit.MICROSECONDS.toNanos(500)), 0);
+        assertEquals(RenderMetrics.bucketOf(TimeUnit.MILLISECONDS.toNanos(1)), 1);
+        assertEquals(RenderMetrics.bucketOf(TimeUnit.MILLISECONDS.toNanos(3)), 2);
+        assertEquals(RenderMetrics.bucketOf(TimeUnit.MILLISECONDS.toNanos(1023)), 10);
+        assertEquals(RenderMetrics.bucketOf(TimeUnit.SECONDS.toNanos(5)), 11);
+    }
+
+    @Test
+    public void histogramRecordsLatencies() {
+        RenderMetrics.Histogram histogram = RenderMetrics.getHistogram(RenderMetrics.Phase.LAYOUT);
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(histogram.getCount(), 3);
+        assertEquals(histogram.getBucketCount(2), 2);
+        assertEquals(histogram.getBucketCount(5), 1);
+        assertEquals(histogram.getMaxNanos(), TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(histogram.getTotalNanos(), TimeUnit.MILLISECONDS.toNanos(25));
+        assertEquals(RenderMetrics.getHistogram(RenderMetrics.Phase.RASTER).getCount(), 0);
+    }
+
+    @Test
+    public void countersAreAccumulated() {
+        RenderMetrics.increment(RenderMetrics.Counter.RENDERS);
+        RenderMetrics.increment(RenderMetrics.Counter.RENDERS);
+        RenderMetrics.add(RenderMetrics.Counter.QUERY_ROWS, 42);
+        assertEquals(RenderMetrics.getCount(RenderMetrics.Counter.RENDERS), 2);
+        assertEquals(RenderMetrics.getCount(RenderMetrics.Counter.QUERY_ROWS), 42);
+
+        RenderMetrics.reset();
+        assertEquals(RenderMetrics.getCount(RenderMetrics.Counter.RENDERS), 0);
+    }
+
+    @Test
+    public void dumpListsPhasesAndCounters() {
+        RenderMetrics.record(RenderMetrics.Phase.UPDATE, RenderMetrics.start());
+        RenderMetrics.increment(RenderMetrics.Counter.ALARM_TICKS);
+        StringWriter text = new StringWriter();
+        RenderMetrics.dump(new PrintWriter(text));
+        assertTrue(text.toString().contains("UPDATE count=1 "));
+        assertTrue(text.toString().contains("ALARM_TICKS=1"));
+        assertTrue(text.toString().contains("BitmapPool "));
+    }
+}
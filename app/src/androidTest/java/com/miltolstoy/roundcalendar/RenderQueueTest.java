@@ -0,0 +1,98 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RenderQueueTest {
+
+    @Test
+    public void collapsesRequestsForSameWidget() {
+        RenderQueue queue = new RenderQueue();
+        assertFalse(queue.offer(1, RenderQueue.Priority.NAVIGATION, null));
+        assertTrue(queue.offer(1, RenderQueue.Priority.NAVIGATION, null));
+        assertTrue(queue.offer(1, RenderQueue.Priority.NAVIGATION, null));
+        assertEquals(queue.size(), 1);
+        assertEquals(queue.getCollapsedCount(), 2);
+
+        RenderQueue.Request request = queue.poll();
+        assertEquals(request.getWidgetId(), 1);
+        assertTrue(queue.isCurrent(request));
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void navigationGoesFirst() {
+        RenderQueue queue = new RenderQueue();
+        queue.offer(1, RenderQueue.Priority.CONTENT_CHANGE, null);
+        queue.offer(2, RenderQueue.Priority.TICK, null);
+        queue.offer(3, RenderQueue.Priority.NAVIGATION, null);
+        queue.offer(4, RenderQueue.Priority.TICK, null);
+        assertEquals(queue.poll().getWidgetId(), 3);
+        assertEquals(queue.poll().getWidgetId(), 2);
+        assertEquals(queue.poll().getWidgetId(), 4);
+        assertEquals(queue.poll().getWidgetId(), 1);
+    }
+
+    @Test
+    public void collapsedRequestTakesHighestPriority() {
+        RenderQueue queue = new RenderQueue();
+        queue.offer(1, RenderQueue.Priority.TICK, null);
+        queue.offer(2, RenderQueue.Priority.CONTENT_CHANGE, null);
+        queue.offer(2, RenderQueue.Priority.NAVIGATION, null);
+        queue.offer(2, RenderQueue.Priority.CONTENT_CHANGE, null);
+        RenderQueue.Request request = queue.poll();
+        assertEquals(request.getWidgetId(), 2);
+        assertEquals(request.getPriority(), RenderQueue.Priority.NAVIGATION);
+    }
+
+    @Test
+    public void newerRequestMakesRunningOneStale() {
+        RenderQueue queue = new RenderQueue();
+        queue.offer(1, RenderQueue.Priority.TICK, null);
+        RenderQueue.Request running = queue.poll();
+        queue.offer(1, RenderQueue.Priority.NAVIGATION, null);
+        assertFalse(queue.isCurrent(running));
+        assertTrue(queue.isCurrent(queue.poll()));
+    }
+
+    @Test
+    public void completesCollapsedRequests() {
+        RenderQueue queue = new RenderQueue();
+        final AtomicInteger completed = new AtomicInteger();
+        Runnable completion = new Runnable() {
+            @Override
+            public void run() {
+                completed.incrementAndGet();
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            queue.offer(1, RenderQueue.Priority.NAVIGATION, completion);
+        }
+        queue.poll().complete();
+        assertEquals(completed.get(), 3);
+    }
+}
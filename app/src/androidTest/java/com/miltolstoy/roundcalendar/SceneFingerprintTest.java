@@ -0,0 +1,84 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Point;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SceneFingerprintTest {
+
+    private final Point widgetSize = new Point(500, 600);
+    private final WidgetStateStore.WidgetState state = WidgetStateStore.WidgetState.DEFAULT;
+
+    @Test
+    public void equalScenesHaveEqualFingerprints() {
+        assertEquals(SceneFingerprint.of(widgetSize, 1000, new Point(10, 20), createEvents("a"), true, state),
+                SceneFingerprint.of(new Point(500, 600), 1000, new Point(10, 20), createEvents("a"), true, state));
+    }
+
+    @Test
+    public void handMoveChangesFingerprint() {
+        assertNotEquals(SceneFingerprint.of(widgetSize, 1000, new Point(10, 20), createEvents("a"), true, state),
+                SceneFingerprint.of(widgetSize, 1000, new Point(10, 21), createEvents("a"), true, state));
+        assertNotEquals(SceneFingerprint.of(widgetSize, 1000, new Point(10, 20), createEvents("a"), true, state),
+                SceneFingerprint.of(widgetSize, 1000, null, createEvents("a"), true, state));
+    }
+
+    @Test
+    public void eventsChangeFingerprint() {
+        assertNotEquals(SceneFingerprint.of(widgetSize, 1000, null, createEvents("a"), true, state),
+                SceneFingerprint.of(widgetSize, 1000, null, createEvents("b"), true, state));
+    }
+
+    @Test
+    public void settingsChangeFingerprint() {
+        WidgetStateStore.WidgetState otherSleep = state.withSettings(0, new TimeInfo(23, 0),
+                state.getSleepEndTime());
+        assertNotEquals(SceneFingerprint.of(widgetSize, 1000, null, createEvents("a"), true, state),
+                SceneFingerprint.of(widgetSize, 1000, null, createEvents("a"), false, state));
+        assertNotEquals(SceneFingerprint.of(widgetSize, 1000, null, createEvents("a"), true, state),
+                SceneFingerprint.of(widgetSize, 1000, null, createEvents("a"), true, otherSleep));
+    }
+
+    @Test
+    public void localeChangesFingerprint() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.US);
+            long usFingerprint = SceneFingerprint.of(widgetSize, 1000, null, createEvents("a"), true, state);
+            Locale.setDefault(Locale.GERMANY);
+            assertNotEquals(SceneFingerprint.of(widgetSize, 1000, null, createEvents("a"), true, state),
+                    usFingerprint);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static EventBuffer createEvents(String title) {
+        EventBuffer events = new EventBuffer();
+        events.add(title, 1000, 2000, 0, false, 1000, 2000);
+        return events;
+    }
+}
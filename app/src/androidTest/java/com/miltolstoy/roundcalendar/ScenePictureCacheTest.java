@@ -0,0 +1,77 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Picture;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ScenePictureCacheTest {
+
+    @Test
+    public void pictureIsReplayedForSameScene() {
+        ScenePictureCache cache = new ScenePictureCache(2);
+        Picture picture = new Picture();
+        assertNull(cache.get(1, 100));
+        cache.put(1, 100, picture);
+        assertSame(cache.get(1, 100), picture);
+        assertNull(cache.get(1, 101));
+        assertNull(cache.get(2, 100));
+        assertEquals(cache.getRecordCount(), 1);
+        assertEquals(cache.getReplayCount(), 1);
+    }
+
+    @Test
+    public void leastRecentSceneIsEvicted() {
+        ScenePictureCache cache = new ScenePictureCache(2);
+        Picture first = new Picture();
+        cache.put(1, 100, first);
+        cache.put(1, 101, new Picture());
+        cache.get(1, 100);
+        cache.put(1, 102, new Picture());
+        assertSame(cache.get(1, 100), first);
+        assertNull(cache.get(1, 101));
+        assertEquals(cache.size(1), 2);
+    }
+
+    @Test
+    public void rerecordedSceneReplacesPicture() {
+        ScenePictureCache cache = new ScenePictureCache(2);
+        Picture picture = new Picture();
+        cache.put(1, 100, new Picture());
+        cache.put(1, 100, picture);
+        assertSame(cache.get(1, 100), picture);
+        assertEquals(cache.size(1), 1);
+    }
+
+    @Test
+    public void removedWidgetsAreDropped() {
+        ScenePictureCache cache = new ScenePictureCache(2);
+        cache.put(1, 100, new Picture());
+        cache.put(2, 100, new Picture());
+        cache.remove(new int[] {1});
+        assertNull(cache.get(1, 100));
+        assertEquals(cache.size(1), 0);
+        assertEquals(cache.size(2), 1);
+    }
+}
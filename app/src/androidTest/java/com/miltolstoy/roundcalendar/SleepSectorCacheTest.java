@@ -0,0 +1,55 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Path;
+import android.graphics.Point;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class SleepSectorCacheTest {
+
+    private final ClockWidget clockWidget = new ClockWidget(new Point(1000, 2000));
+
+    @Test
+    public void sectorsAreReused() {
+        SleepSectorCache cache = new SleepSectorCache(4);
+        Path[] sectors = cache.get(clockWidget, new TimeInfo(21, 0), new TimeInfo(6, 0));
+        assertSame(cache.get(clockWidget, new TimeInfo(21, 0), new TimeInfo(6, 0)), sectors);
+        assertNotSame(cache.get(clockWidget, new TimeInfo(22, 0), new TimeInfo(6, 0)), sectors);
+        assertNotSame(cache.get(new ClockWidget(new Point(500, 1000)), new TimeInfo(21, 0), new TimeInfo(6, 0)),
+                sectors);
+    }
+
+    @Test
+    public void adjacentSectorsAreMerged() {
+        SleepSectorCache cache = new SleepSectorCache(4);
+        assertEquals(cache.get(clockWidget, new TimeInfo(21, 0), new TimeInfo(6, 0)).length, 1);
+    }
+
+    @Test
+    public void overlappingSectorsAreSeparate() {
+        SleepSectorCache cache = new SleepSectorCache(4);
+        assertEquals(cache.get(clockWidget, new TimeInfo(1, 0), new TimeInfo(6, 0)).length, 2);
+    }
+}
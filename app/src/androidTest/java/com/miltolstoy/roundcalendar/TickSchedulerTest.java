@@ -0,0 +1,101 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.text.format.DateUtils;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+
+public class TickSchedulerTest {
+
+    private static final long minute = DateUtils.MINUTE_IN_MILLIS;
+
+    private final long dayStart = getDayStart(0);
+    private final long nextDayStart = getDayStart(1);
+
+    @Test
+    public void handStepIsAlignedToMinute() {
+        long now = dayStart + 10 * DateUtils.HOUR_IN_MILLIS + 10 * DateUtils.SECOND_IN_MILLIS;
+        assertEquals(TickScheduler.nextHandStep(now, 300, (int) minute),
+                dayStart + 10 * DateUtils.HOUR_IN_MILLIS + minute);
+    }
+
+    @Test
+    public void smallWidgetTicksLessOften() {
+        // 86400000 / (2 * pi * 50) ~ 275 seconds, rounded up to 5 minutes
+        long now = dayStart + 10 * DateUtils.HOUR_IN_MILLIS;
+        assertEquals(TickScheduler.nextHandStep(now, 50, (int) minute), now + 5 * minute);
+    }
+
+    @Test
+    public void updatePeriodLimitsHandSteps() {
+        long now = dayStart + 10 * DateUtils.HOUR_IN_MILLIS;
+        assertEquals(TickScheduler.nextHandStep(now, 300, (int) (10 * minute)), now + 10 * minute);
+    }
+
+    @Test
+    public void eventEdgeGoesBeforeHandStep() {
+        long now = dayStart + 10 * DateUtils.HOUR_IN_MILLIS + 10 * DateUtils.SECOND_IN_MILLIS;
+        long eventStart = dayStart + 10 * DateUtils.HOUR_IN_MILLIS + 5 * minute;
+        EventBuffer events = new EventBuffer();
+        events.add("event", eventStart, eventStart + DateUtils.HOUR_IN_MILLIS, 0, false, eventStart,
+                eventStart + DateUtils.HOUR_IN_MILLIS);
+        assertEquals(TickScheduler.computeNextChange(now, dayStart, nextDayStart, 300,
+                state(0, (int) (30 * minute)), events), eventStart);
+    }
+
+    @Test
+    public void sleepEdgeGoesBeforeHandStep() {
+        long now = dayStart + 20 * DateUtils.HOUR_IN_MILLIS + 59 * minute + 30 * DateUtils.SECOND_IN_MILLIS;
+        assertEquals(TickScheduler.computeNextChange(now, dayStart, nextDayStart, 300,
+                state(0, (int) DateUtils.HOUR_IN_MILLIS), new EventBuffer()),
+                dayStart + 21 * DateUtils.HOUR_IN_MILLIS);
+    }
+
+    @Test
+    public void shiftedWidgetChangesAtMidnight() {
+        long now = dayStart + 10 * DateUtils.HOUR_IN_MILLIS;
+        assertEquals(TickScheduler.computeNextChange(now, dayStart, nextDayStart, 300, state(1, (int) minute),
+                new EventBuffer()), nextDayStart);
+    }
+
+    @Test
+    public void disabledAutoUpdateHasNoTicks() {
+        long now = dayStart + 10 * DateUtils.HOUR_IN_MILLIS;
+        assertEquals(TickScheduler.computeNextChange(now, dayStart, nextDayStart, 300, state(0, 0),
+                new EventBuffer()), 0);
+    }
+
+    private static WidgetStateStore.WidgetState state(int daysShift, int updatePeriod) {
+        return new WidgetStateStore.WidgetState(daysShift, updatePeriod, new TimeInfo(21, 0), new TimeInfo(6, 0));
+    }
+
+    private static long getDayStart(int daysShift) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH),
+                0, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, daysShift);
+        return calendar.getTimeInMillis();
+    }
+}
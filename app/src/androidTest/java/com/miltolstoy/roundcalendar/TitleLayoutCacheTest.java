@@ -0,0 +1,86 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Paint;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TitleLayoutCacheTest {
+
+    private static final String longTitle = "Quarterly planning meeting with the whole product team";
+
+    private Paint createPaint() {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(30);
+        return paint;
+    }
+
+    @Test
+    public void shortTitleIsNotChanged() {
+        assertEquals(TitleLayoutCache.ellipsize("Lunch", createPaint(), 1000), "Lunch");
+    }
+
+    @Test
+    public void ellipsizedTitleFitsWidth() {
+        Paint paint = createPaint();
+        for (float maxWidth = 20; maxWidth < paint.measureText(longTitle); maxWidth += 7) {
+            String text = TitleLayoutCache.ellipsize(longTitle, paint, maxWidth);
+            assertTrue(text.endsWith(TitleLayoutCache.ELLIPSIS));
+            assertTrue(text.equals(TitleLayoutCache.ELLIPSIS) || paint.measureText(text) <= maxWidth);
+        }
+    }
+
+    @Test
+    public void ellipsizedTitleIsLongestFitting() {
+        Paint paint = createPaint();
+        float maxWidth = paint.measureText(longTitle) / 2;
+        String text = TitleLayoutCache.ellipsize(longTitle, paint, maxWidth);
+        int prefixLength = text.length() - TitleLayoutCache.ELLIPSIS.length();
+        String longer = longTitle.substring(0, prefixLength + 1) + TitleLayoutCache.ELLIPSIS;
+        assertTrue(paint.measureText(longer) > maxWidth);
+    }
+
+    @Test
+    public void layoutIsCached() {
+        TitleLayoutCache cache = new TitleLayoutCache(16);
+        Paint paint = createPaint();
+        TitleLayoutCache.Layout layout = cache.get(longTitle, paint, 200);
+        assertSame(cache.get(longTitle, paint, 200), layout);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+        assertTrue(layout.getWidth() > 0);
+        assertTrue(layout.getHeight() > 0);
+    }
+
+    @Test
+    public void layoutDependsOnWidthAndTextSize() {
+        TitleLayoutCache cache = new TitleLayoutCache(16);
+        Paint paint = createPaint();
+        TitleLayoutCache.Layout layout = cache.get(longTitle, paint, 200);
+        assertTrue(cache.get(longTitle, paint, 300) != layout);
+        paint.setTextSize(40);
+        assertTrue(cache.get(longTitle, paint, 200) != layout);
+        assertEquals(cache.getMissCount(), 3);
+    }
+}
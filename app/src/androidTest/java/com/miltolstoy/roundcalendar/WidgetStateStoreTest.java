@@ -0,0 +1,152 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.test.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class WidgetStateStoreTest {
+
+    private SharedPreferences preferences;
+
+    @Before
+    public void setUp() {
+        preferences = InstrumentationRegistry.getTargetContext().getSharedPreferences("WidgetStateStoreTest",
+                Context.MODE_PRIVATE);
+        preferences.edit().clear().commit();
+    }
+
+    @Test
+    public void unknownWidgetHasDefaultState() {
+        WidgetStateStore store = new WidgetStateStore(preferences);
+        assertSame(store.get(1), WidgetStateStore.WidgetState.DEFAULT);
+    }
+
+    @Test
+    public void widgetsHaveSeparateDaysShift() {
+        WidgetStateStore store = new WidgetStateStore(preferences);
+        store.update(1, shift(1));
+        store.update(1, shift(1));
+        store.update(2, shift(-1));
+        assertEquals(store.get(1).getDaysShift(), 2);
+        assertEquals(store.get(2).getDaysShift(), -1);
+    }
+
+    @Test
+    public void stateIsPersisted() {
+        WidgetStateStore store = new WidgetStateStore(preferences);
+        store.update(5, new WidgetStateStore.Mutation() {
+            @Override
+            public WidgetStateStore.WidgetState apply(WidgetStateStore.WidgetState state) {
+                return new WidgetStateStore.WidgetState(-3, 60000, new TimeInfo(22, 30), new TimeInfo(7, 15));
+            }
+        });
+
+        WidgetStateStore.WidgetState restored = new WidgetStateStore(preferences).get(5);
+        assertEquals(restored.getDaysShift(), -3);
+        assertEquals(restored.getUpdatePeriodMillis(), 60000);
+        assertEquals(restored.getSleepStartTime().getHours(), 22);
+        assertEquals(restored.getSleepStartTime().getMinutes(), 30);
+        assertEquals(restored.getSleepEndTime().getHours(), 7);
+        assertEquals(restored.getSleepEndTime().getMinutes(), 15);
+    }
+
+    @Test
+    public void removedStateIsNotRestored() {
+        WidgetStateStore store = new WidgetStateStore(preferences);
+        store.update(5, shift(1));
+        store.remove(new int[] {5});
+        assertSame(new WidgetStateStore(preferences).get(5), WidgetStateStore.WidgetState.DEFAULT);
+    }
+
+    @Test
+    public void stateRemovedDuringUpdateIsNotPersisted() {
+        final WidgetStateStore store = new WidgetStateStore(preferences);
+        store.update(5, new WidgetStateStore.Mutation() {
+            @Override
+            public WidgetStateStore.WidgetState apply(WidgetStateStore.WidgetState state) {
+                store.remove(new int[] {5});
+                return state.withDaysShift(1);
+            }
+        });
+        assertSame(new WidgetStateStore(preferences).get(5), WidgetStateStore.WidgetState.DEFAULT);
+    }
+
+    @Test
+    public void minUpdatePeriodSkipsDisabled() {
+        WidgetStateStore store = new WidgetStateStore(preferences);
+        store.update(1, period(0));
+        store.update(2, period(120000));
+        store.update(3, period(60000));
+        assertEquals(store.getMinUpdatePeriod(), 60000);
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws InterruptedException {
+        final WidgetStateStore store = new WidgetStateStore(preferences);
+        final int threadsCount = 4;
+        final int updatesPerThread = 500;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadsCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < updatesPerThread; j++) {
+                        store.update(1, shift(1));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(store.get(1).getDaysShift(), threadsCount * updatesPerThread);
+        assertEquals(new WidgetStateStore(preferences).get(1).getDaysShift(), threadsCount * updatesPerThread);
+    }
+
+    private static WidgetStateStore.Mutation shift(final int step) {
+        return new WidgetStateStore.Mutation() {
+            @Override
+            public WidgetStateStore.WidgetState apply(WidgetStateStore.WidgetState state) {
+                return state.withDaysShift(state.getDaysShift() + step);
+            }
+        };
+    }
+
+    private static WidgetStateStore.Mutation period(final int value) {
+        return new WidgetStateStore.Mutation() {
+            @Override
+            public WidgetStateStore.WidgetState apply(WidgetStateStore.WidgetState state) {
+                return state.withSettings(value, state.getSleepStartTime(), state.getSleepEndTime());
+            }
+        };
+    }
+}
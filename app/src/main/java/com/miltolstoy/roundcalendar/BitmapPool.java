@@ -0,0 +1,137 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+import lombok.Getter;
+
+class BitmapPool {
+
+    static final long DEFAULT_BYTE_BUDGET = 8 * 1024 * 1024;
+
+    private final Map<Key, ArrayDeque<Bitmap>> freeBitmaps = new HashMap<>();
+    private final LinkedList<Bitmap> releaseOrder = new LinkedList<>(); // oldest released bitmap first
+    @Getter private final long byteBudget;
+    @Getter private volatile long pooledBytes = 0;
+    @Getter private volatile long hitCount = 0;
+    @Getter private volatile long missCount = 0;
+
+    BitmapPool(long byteBudget) {
+        this.byteBudget = byteBudget;
+    }
+
+    synchronized Bitmap acquire(int width, int height, Bitmap.Config config) {
+        ArrayDeque<Bitmap> bitmaps = freeBitmaps.get(new Key(width, height, config));
+        Bitmap bitmap = (bitmaps != null) ? bitmaps.pollLast() : null;
+        if (bitmap == null) {
+            missCount++;
+            return Bitmap.createBitmap(width, height, config);
+        }
+
+        hitCount++;
+        releaseOrder.remove(bitmap);
+        pooledBytes -= bitmap.getAllocationByteCount();
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (size > byteBudget) {
+            if (Logging.DEBUG) {
+                Logging.d("Bitmap of " + size + " bytes exceeds pool budget, dropping it");
+            }
+            return;
+        }
+
+        Key key = new Key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+        ArrayDeque<Bitmap> bitmaps = freeBitmaps.get(key);
+        if (bitmaps == null) {
+            bitmaps = new ArrayDeque<>();
+            freeBitmaps.put(key, bitmaps);
+        }
+        if (bitmaps.contains(bitmap)) {
+            return;
+        }
+        bitmaps.addLast(bitmap);
+        releaseOrder.addLast(bitmap);
+        pooledBytes += size;
+        trimToBudget();
+    }
+
+    synchronized void clear() {
+        freeBitmaps.clear();
+        releaseOrder.clear();
+        pooledBytes = 0;
+    }
+
+    private void trimToBudget() {
+        for (Iterator<Bitmap> iter = releaseOrder.iterator(); iter.hasNext() && pooledBytes > byteBudget; ) {
+            Bitmap eldest = iter.next();
+            iter.remove();
+            Key key = new Key(eldest.getWidth(), eldest.getHeight(), eldest.getConfig());
+            ArrayDeque<Bitmap> bitmaps = freeBitmaps.get(key);
+            if (bitmaps != null) {
+                bitmaps.remove(eldest);
+                if (bitmaps.isEmpty()) {
+                    freeBitmaps.remove(key);
+                }
+            }
+            pooledBytes -= eldest.getAllocationByteCount();
+            // bitmap is not recycled explicitly: it may still be referenced by RemoteViews being sent
+        }
+    }
+
+    private static class Key {
+        private final int width;
+        private final int height;
+        private final Bitmap.Config config;
+
+        Key(int width, int height, Bitmap.Config config) {
+            this.width = width;
+            this.height = height;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return width == other.width && height == other.height && config == other.config;
+        }
+
+        @Override
+        public int hashCode() {
+            return (width * 31 + height) * 31 + (config != null ? config.hashCode() : 0);
+        }
+    }
+}
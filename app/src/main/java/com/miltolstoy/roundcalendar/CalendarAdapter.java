@@ -23,34 +23,41 @@ import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
 import android.provider.CalendarContract;
+import android.text.TextUtils;
 import android.text.format.DateUtils;
-import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import lombok.Getter;
+
 import static android.provider.CalendarContract.Calendars.ACCOUNT_NAME;
 import static android.provider.CalendarContract.Calendars._ID;
 import static android.provider.CalendarContract.Calendars.CALENDAR_DISPLAY_NAME;
-import static android.provider.CalendarContract.Events.TITLE;
 import static android.provider.CalendarContract.Events.DTSTART;
-import static android.provider.CalendarContract.Events.DTEND;
-import static android.provider.CalendarContract.Events.DURATION;
-import static android.provider.CalendarContract.Events.ALL_DAY;
 import static android.provider.CalendarContract.Events.CALENDAR_ID;
-import static android.provider.CalendarContract.Events.DISPLAY_COLOR;
-import static com.miltolstoy.roundcalendar.Logging.TAG;
 
-class CalendarAdapter {
+class CalendarAdapter implements EventWindowCache.Source {
 
     private Context context;
     private List<String> calendarIds;
     private int daysShift;
+    // Set by pinDay()
+    private long pinnedDayStart;
+    private EventBuffer pinnedDayEvents;
 
     static final int CALENDAR_EMPTY_ID = -1;
 
+    // days around the displayed one fetched with a single query, and the limit of days kept in memory
+    private static final int eventsWindowRadiusDays = 3;
+    private static final int maxCachedDays = 15;
+    private static final long cachedDayMaxAgeMillis = 15 * DateUtils.MINUTE_IN_MILLIS;
+    @Getter private static final EventWindowCache eventWindowCache = new EventWindowCache(eventsWindowRadiusDays,
+            maxCachedDays, cachedDayMaxAgeMillis);
+
     CalendarAdapter(Context context) {
         this(context, null, 0);
     }
@@ -71,17 +78,19 @@ class CalendarAdapter {
         Cursor cursor = context.getContentResolver().query(uri, projection, null /*selection*/, null /*selectionArgs*/,
                 null /*sortOrder*/);
         if (cursor == null || cursor.getCount() == 0) {
-            Log.e(TAG, "No results");
+            Logging.e("No results");
             return null;
         }
 
         List<CalendarInfo> calendarInfoList = new ArrayList<>();
         cursor.moveToFirst();
-        Log.d(TAG, "Calendars list:");
+        Logging.d("Calendars list:");
         do {
             CalendarInfo info = new CalendarInfo(Integer.parseInt(cursor.getString(0)), cursor.getString(1),
                     cursor.getString(2));
-            Log.d(TAG, info.toDebugString());
+            if (Logging.DEBUG) {
+                Logging.d(info.toDebugString());
+            }
             calendarInfoList.add(info);
         } while (cursor.moveToNext());
 
@@ -89,11 +98,67 @@ class CalendarAdapter {
         return calendarInfoList;
     }
 
+    // Reads displayed day start and events once, later reads of this adapter return them. Everything derived from a
+    // pinned adapter (scene fingerprint and recorded picture) describes the same events even if the calendar changes.
+    CalendarAdapter pinDay() {
+        pinnedDayEvents = null;
+        pinnedDayStart = getDayStart();
+        pinnedDayEvents = getTodayEventBuffer();
+        return this;
+    }
+
     List<Event> getTodayEvents() {
+        return getTodayEventBuffer().toEvents();
+    }
+
+    // Returned buffer is shared with events cache and must not be modified
+    EventBuffer getTodayEventBuffer() {
+        if (pinnedDayEvents != null) {
+            return pinnedDayEvents;
+        }
+        EventBuffer events = eventWindowCache.getDayEvents(this, daysShift);
+        if (events.getSize() == 0) {
+            Logging.w("No events for today");
+        }
+        if (Logging.DEBUG) {
+            Logging.d("Today events total: " + events.getSize());
+        }
+        return events;
+    }
+
+    // Re-reads displayed day events, returns true if they were changed since the last read
+    boolean refreshTodayEvents() {
+        return eventWindowCache.refreshDay(this, daysShift);
+    }
+
+    static void markEventsDirty() {
+        eventWindowCache.markDirty();
+    }
+
+    static void setEventsObserved(boolean observed) {
+        eventWindowCache.setObserved(observed);
+    }
+
+    @Override
+    public String getSelectionKey() {
+        if (calendarIds == null) {
+            return "";
+        }
+        List<String> sortedIds = new ArrayList<>(calendarIds);
+        Collections.sort(sortedIds);
+        return TextUtils.join(",", sortedIds);
+    }
+
+    @Override
+    public long getDayStart(int daysShift) {
+        return DayWindowService.getDayStart(daysShift);
+    }
+
+    @Override
+    public EventBuffer queryInstances(long rangeStart, long rangeEnd) {
         Uri.Builder builder = Uri.parse("content://com.android.calendar/instances/when").buildUpon();
-        long dayStart = getDayStart();
-        ContentUris.appendId(builder, dayStart);
-        ContentUris.appendId(builder, dayStart + DateUtils.DAY_IN_MILLIS);
+        ContentUris.appendId(builder, rangeStart);
+        ContentUris.appendId(builder, rangeEnd);
 
         String where = null;
         String[] selectionArgs = null;
@@ -107,54 +172,41 @@ class CalendarAdapter {
             where = whereBuilder.toString();
             selectionArgs = calendarIds.toArray(new String[0]);
         }
-        
-        Cursor cursor = context.getContentResolver().query(builder.build(),
-                new String[] {TITLE, DTSTART, DTEND, DURATION, ALL_DAY, DISPLAY_COLOR}, where, selectionArgs, DTSTART);
-
-        List<Event> events = new ArrayList<>();
-        if (cursor != null && cursor.getCount() != 0) {
-            cursor.moveToFirst();
-        } else {
-            Log.w(TAG, "No events for today");
-            return events;
-        }
 
-        Log.d(TAG, "Today events:");
-        do {
-            Event event = new Event(cursor.getString(0), cursor.getString(1), cursor.getString(2), cursor.getString(3),
-                    cursor.getString(4), Integer.parseInt(cursor.getString(5)));
-            int todayDayNumber = getDayOfMonth();
-            if ( event.isAllDay() && (event.getFinishDate() == todayDayNumber) ) {
-                continue; // all-day event, which actually ended yesterday, but have finish time today at 3:00
-            }
-            events.add(event);
-        } while (cursor.moveToNext());
-        Log.d(TAG, "Total: " + events.size());
+        long queryStart = RenderMetrics.start();
+        Cursor cursor = context.getContentResolver().query(builder.build(), EventBuffer.PROJECTION, where,
+                selectionArgs, DTSTART);
+        RenderMetrics.record(RenderMetrics.Phase.QUERY, queryStart);
+        if (cursor == null) {
+            Logging.w("No events in requested range");
+            return new EventBuffer();
+        }
 
+        long parseStart = RenderMetrics.start();
+        EventBuffer events = EventBuffer.fromCursor(cursor);
+        RenderMetrics.record(RenderMetrics.Phase.PARSE, parseStart);
+        RenderMetrics.add(RenderMetrics.Counter.QUERY_ROWS, events.getSize());
+        if (Logging.DEBUG) {
+            Logging.d("Range events total: " + events.getSize());
+        }
         cursor.close();
         return events;
     }
 
+    long getDayStart() {
+        if (pinnedDayEvents != null) {
+            return pinnedDayStart;
+        }
+        return getDayStart(daysShift);
+    }
+
     Calendar getDayStartCalendar() {
         Calendar calendar = Calendar.getInstance();
-        calendar.set(
-                calendar.get(Calendar.YEAR),
-                calendar.get(Calendar.MONTH),
-                calendar.get(Calendar.DAY_OF_MONTH),
-                0, 0, 0);
-        calendar.add(Calendar.DAY_OF_MONTH, daysShift);
+        calendar.setTimeInMillis(getDayStart());
         return calendar;
     }
 
     boolean isCalendarShifted() {
         return (daysShift != 0);
     }
-
-    private long getDayStart() {
-        return getDayStartCalendar().getTime().getTime();
-    }
-
-    private int getDayOfMonth() {
-        return getDayStartCalendar().get(Calendar.DATE);
-    }
 }
@@ -0,0 +1,97 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.CalendarContract;
+
+
+// Invalidates cached events when calendar data is changed and asks widgets to redraw. Bursts of changes (e.g. sync)
+// are collapsed into a single refresh.
+class CalendarObserver extends ContentObserver {
+
+    private static final long refreshDelayMillis = 2000;
+    private static CalendarObserver instance = null;
+
+    private final Context context;
+    private final Handler handler;
+    private final Runnable refreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            WidgetProvider.onCalendarChanged(context);
+        }
+    };
+
+    private CalendarObserver(Context context, Handler handler) {
+        super(handler);
+        this.context = context;
+        this.handler = handler;
+    }
+
+    static synchronized void register(Context context) {
+        if (instance != null) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        CalendarObserver observer = new CalendarObserver(appContext, new Handler(Looper.getMainLooper()));
+        try {
+            appContext.getContentResolver().registerContentObserver(CalendarContract.Instances.CONTENT_URI, true,
+                    observer);
+            appContext.getContentResolver().registerContentObserver(CalendarContract.Events.CONTENT_URI, true,
+                    observer);
+        } catch (SecurityException e) {
+            Logging.e("Failed to observe calendar changes: " + e.getMessage());
+            appContext.getContentResolver().unregisterContentObserver(observer);
+            return;
+        }
+        instance = observer;
+        CalendarAdapter.setEventsObserved(true);
+        Logging.d("Calendar observer registered");
+    }
+
+    static synchronized void unregister() {
+        if (instance == null) {
+            return;
+        }
+        instance.handler.removeCallbacks(instance.refreshRunnable);
+        instance.context.getContentResolver().unregisterContentObserver(instance);
+        instance = null;
+        CalendarAdapter.setEventsObserved(false);
+        Logging.d("Calendar observer unregistered");
+    }
+
+    @Override
+    public void onChange(boolean selfChange) {
+        onChange(selfChange, null);
+    }
+
+    @Override
+    public void onChange(boolean selfChange, Uri uri) {
+        if (Logging.DEBUG) {
+            Logging.d("Calendar data changed: " + uri);
+        }
+        CalendarAdapter.markEventsDirty();
+        handler.removeCallbacks(refreshRunnable);
+        handler.postDelayed(refreshRunnable, refreshDelayMillis);
+    }
+}
@@ -22,22 +22,22 @@ import android.content.Context;
 import android.graphics.Color;
 import android.graphics.Point;
 import android.graphics.RectF;
-import android.util.Log;
 import android.view.Display;
 import android.view.WindowManager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
-import static com.miltolstoy.roundcalendar.Logging.TAG;
-
 class ClockWidget {
 
+    static final int MINUTES_IN_DAY = DialAngles.MINUTES_IN_DAY;
+
     @Getter private final int borderColor = Color.WHITE;
     @Getter private final int fillColor = Color.TRANSPARENT;
     @Getter private final int digitColor = Color.WHITE;
@@ -65,8 +65,39 @@ class ClockWidget {
 
     @Getter private Point center;
     @Getter private float radius;
-    private Point screenSize;
+    @Getter private Point screenSize;
     private List<Point> hoursCoordinates;
+    private float[] hourMarkerLines;
+    private float[] hourDotPoints;
+    private float[] digitPoints;
+    private RectF widgetCircle;
+
+    private static final String[] digitLabels = new String[24];
+    static {
+        for (int i = 0; i < digitLabels.length; i++) {
+            digitLabels[i] = Integer.toString(i);
+        }
+    }
+
+    private static final int maxInternedWidgets = 4;
+    private static final Map<Point, ClockWidget> internedWidgets =
+            new LinkedHashMap<Point, ClockWidget>(maxInternedWidgets, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Point, ClockWidget> eldest) {
+                    return size() > maxInternedWidgets;
+                }
+            };
+
+    static ClockWidget obtain(Point screenSize) {
+        synchronized (internedWidgets) {
+            ClockWidget widget = internedWidgets.get(screenSize);
+            if (widget == null) {
+                widget = new ClockWidget(new Point(screenSize));
+                internedWidgets.put(widget.getScreenSize(), widget);
+            }
+            return widget;
+        }
+    }
 
     ClockWidget(Point screenSize) {
         this.screenSize = screenSize;
@@ -76,85 +107,50 @@ class ClockWidget {
 
     List<List<Point>> getHourMarkersCoordinates() {
         List<List<Point>> markers = new ArrayList<>();
-        for (int i = 0; i < hoursCoordinates.size(); i++) {
-            if (i % 3 != 0) {
-                continue;
-            }
-
-            Point hTStart = hoursCoordinates.get(i);
-            double xStop, yStop;
-            switch (i) {
-                case 0:
-                    xStop = hTStart.x;
-                    yStop = hTStart.y + markersLength;
-                    break;
-                case 6:
-                    xStop = hTStart.x - markersLength;
-                    yStop = hTStart.y;
-                    break;
-                case 12:
-                    xStop = hTStart.x;
-                    yStop = hTStart.y - markersLength;
-                    break;
-                case 18:
-                    xStop = hTStart.x + markersLength;
-                    yStop = hTStart.y;
-                    break;
-                default:
-                    xStop = i < 12 ? hTStart.x - tiltedMarkersLength : hTStart.x + tiltedMarkersLength;
-                    yStop = (i < 6) || (i > 18) ? hTStart.y + tiltedMarkersLength : hTStart.y - tiltedMarkersLength;
-            }
-
-            Point hTStop = new Point( (int) Math.round(xStop), (int) Math.round(yStop));
-            List<Point> hourT = new ArrayList<>(Arrays.asList(hTStart, hTStop));
-            markers.add(hourT);
+        for (int i = 0; i < hourMarkerLines.length; i += 4) {
+            markers.add(new ArrayList<>(Arrays.asList(
+                    new Point((int) hourMarkerLines[i], (int) hourMarkerLines[i + 1]),
+                    new Point((int) hourMarkerLines[i + 2], (int) hourMarkerLines[i + 3]))));
         }
         return markers;
     }
 
     List<Point> getHourDotsCoordinates() {
-        List<Point> dots = new ArrayList<>();
-        for (int i = 0; i < hoursCoordinates.size(); i++) {
-            if (i % 3 != 0) {
-                dots.add(hoursCoordinates.get(i));
-            }
-        }
-        return dots;
+        return pointsFromTable(hourDotPoints);
     }
 
     List<Point> getCurrentTimeHandCoordinates() {
-        Calendar calendar = Calendar.getInstance();
-        float hours = calendar.get(Calendar.HOUR_OF_DAY);
-        float minutes = calendar.get(Calendar.MINUTE);
-        float degrees = (hours + minutes / 60) * 15;
-        Log.d(TAG, String.format("Time for hand drawing: %d:%d (%f degrees)", (int) hours, (int) minutes, degrees));
+        int minuteOfDay = DayWindowService.toMinuteOfDay(System.currentTimeMillis());
+        float degrees = DialAngles.minuteOfDayToHandDegree(minuteOfDay);
+        if (Logging.DEBUG) {
+            Logging.d(String.format("Time for hand drawing: %d:%d (%f degrees)", minuteOfDay / 60, minuteOfDay % 60,
+                    degrees));
+        }
 
         Point handEnd = calculateCircumferencePoint(degrees);
-        List<Point> handLine = new ArrayList<>(Arrays.asList(center, handEnd));
-        calendar.get(Calendar.HOUR);
-        return handLine;
+        return new ArrayList<>(Arrays.asList(center, handEnd));
     }
 
     List<Point> getDigitsCoordinates() {
-        List<Point> digitsCoordinates = new ArrayList<>();
-        for (int degree : degrees) {
-//            some magic to make digits positions looks symmetric
-            double padding = digitRadiusPadding;
-            if (degree != 0 && degree <= 135) {
-                degree += 1;
-            }
-            else if (degree >= 225) {
-                degree -= 1;
-            }
-            if (degree <= 180) {
-                padding = padding - (10 - (float) degree / 15);
-            }
-            else {
-                padding = padding - (10 -  (360 - (float) degree) / 15);
-            }
-            digitsCoordinates.add(calculateConcentricPoint(degree, Math.round(radius + padding)));
-        }
-        return digitsCoordinates;
+        return pointsFromTable(digitPoints);
+    }
+
+    // Flat tables below are shared between widgets of the same size and must not be modified
+
+    float[] getHourMarkerLines() {
+        return hourMarkerLines;
+    }
+
+    float[] getHourDotPoints() {
+        return hourDotPoints;
+    }
+
+    float[] getDigitPoints() {
+        return digitPoints;
+    }
+
+    String getDigitLabel(int hour) {
+        return digitLabels[hour];
     }
 
     Point getDateCoordinates() {
@@ -170,30 +166,17 @@ class ClockWidget {
     }
 
     RectF getWidgetCircleObject() {
-        RectF oval = new RectF();
-        List<List<Point>> markers = getHourMarkersCoordinates();
-        oval.set(markers.get(6).get(0).x,
-                markers.get(0).get(0).y,
-                markers.get(2).get(0).x,
-                markers.get(4).get(0).y);
-        return oval;
+        return widgetCircle;
     }
 
     EventDegreeData getEventDegrees(Event event) {
-        float startDegree = timeToDegree(event.getStartTime());
-        float endDegree = timeToDegree(event.getFinishTime());
-
-        float sweepDegree;
-        if (startDegree == endDegree) { // event with zero duration
-            sweepDegree = (float) 0.001;
-        } else {
-            sweepDegree = endDegree - startDegree;
-            if (sweepDegree < -180) {
-                sweepDegree += 360;
-            }
-        }
+        return getEventDegrees(event.getStartMinuteOfDay(), event.getFinishMinuteOfDay());
+    }
 
-        return new EventDegreeData(startDegree, sweepDegree);
+    EventDegreeData getEventDegrees(int startMinuteOfDay, int finishMinuteOfDay) {
+        float startDegree = DialAngles.minuteOfDayToDegree(startMinuteOfDay);
+        float endDegree = DialAngles.minuteOfDayToDegree(finishMinuteOfDay);
+        return new EventDegreeData(startDegree, DialAngles.eventSweep(startDegree, endDegree));
     }
 
     Point calculateEventTitlePoint(double degree, int padding) {
@@ -236,6 +219,92 @@ class ClockWidget {
 
         center = calculateWidgetCenter(screenSize, radius, dateSize);
         hoursCoordinates = calculateHoursCoordinates();
+        hourMarkerLines = calculateHourMarkerLines();
+        hourDotPoints = calculateHourDotPoints();
+        digitPoints = calculateDigitPoints();
+        widgetCircle = new RectF(hourMarkerLines[6 * 4], hourMarkerLines[1], hourMarkerLines[2 * 4],
+                hourMarkerLines[4 * 4 + 1]);
+    }
+
+    private float[] calculateHourMarkerLines() {
+        float[] lines = new float[(hoursCoordinates.size() / 3) * 4];
+        int index = 0;
+        for (int i = 0; i < hoursCoordinates.size(); i += 3) {
+            Point hTStart = hoursCoordinates.get(i);
+            double xStop, yStop;
+            switch (i) {
+                case 0:
+                    xStop = hTStart.x;
+                    yStop = hTStart.y + markersLength;
+                    break;
+                case 6:
+                    xStop = hTStart.x - markersLength;
+                    yStop = hTStart.y;
+                    break;
+                case 12:
+                    xStop = hTStart.x;
+                    yStop = hTStart.y - markersLength;
+                    break;
+                case 18:
+                    xStop = hTStart.x + markersLength;
+                    yStop = hTStart.y;
+                    break;
+                default:
+                    xStop = i < 12 ? hTStart.x - tiltedMarkersLength : hTStart.x + tiltedMarkersLength;
+                    yStop = (i < 6) || (i > 18) ? hTStart.y + tiltedMarkersLength : hTStart.y - tiltedMarkersLength;
+            }
+
+            lines[index++] = hTStart.x;
+            lines[index++] = hTStart.y;
+            lines[index++] = Math.round(xStop);
+            lines[index++] = Math.round(yStop);
+        }
+        return lines;
+    }
+
+    private float[] calculateHourDotPoints() {
+        float[] dots = new float[(hoursCoordinates.size() - hoursCoordinates.size() / 3) * 2];
+        int index = 0;
+        for (int i = 0; i < hoursCoordinates.size(); i++) {
+            if (i % 3 != 0) {
+                dots[index++] = hoursCoordinates.get(i).x;
+                dots[index++] = hoursCoordinates.get(i).y;
+            }
+        }
+        return dots;
+    }
+
+    private float[] calculateDigitPoints() {
+        float[] digitsCoordinates = new float[degrees.length * 2];
+        int index = 0;
+        for (int degree : degrees) {
+//            some magic to make digits positions looks symmetric
+            double padding = digitRadiusPadding;
+            if (degree != 0 && degree <= 135) {
+                degree += 1;
+            }
+            else if (degree >= 225) {
+                degree -= 1;
+            }
+            if (degree <= 180) {
+                padding = padding - (10 - (float) degree / 15);
+            }
+            else {
+                padding = padding - (10 -  (360 - (float) degree) / 15);
+            }
+            Point digit = calculateConcentricPoint(degree, Math.round(radius + padding));
+            digitsCoordinates[index++] = digit.x;
+            digitsCoordinates[index++] = digit.y;
+        }
+        return digitsCoordinates;
+    }
+
+    private static List<Point> pointsFromTable(float[] table) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < table.length; i += 2) {
+            points.add(new Point((int) table[i], (int) table[i + 1]));
+        }
+        return points;
     }
 
     private static Point calculateWidgetCenter(Point screenSize, float radius, int dateSize) {
@@ -244,19 +313,13 @@ class ClockWidget {
         return new Point(screenSize.x / 2, Math.round(yPosition));
     }
 
-    private float timeToDegree(String time) {
-        String[] timeSplitted = time.split(":");
-        return (Integer.valueOf(timeSplitted[0]) + (float) Integer.valueOf(timeSplitted[1]) / 60) * 15 - 90;
-    }
-
     private Point calculateCircumferencePoint(double degree) {
         return calculateConcentricPoint(degree, radius);
     }
 
     private Point calculateConcentricPoint(double degree, float radius) {
-        double radians = degree * Math.PI / 180;
-        double x = center.x + radius * Math.sin(radians);
-        double y = center.y - radius * Math.cos(radians);
+        double x = center.x + DialAngles.concentricDx(degree, radius);
+        double y = center.y + DialAngles.concentricDy(degree, radius);
         return new Point((int) Math.round(x), (int) Math.round(y));
     }
 
@@ -0,0 +1,135 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import java.text.DateFormatSymbols;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import lombok.Getter;
+
+
+// Formats date ("dd.MM.yyyy") and short weekday labels of the displayed day into reusable char buffers, which are
+// drawn directly with Canvas.drawText(char[], ...). Labels are re-formatted only when the day, the default locale
+// or the default time zone is changed; weekday names are cached per locale. Instance is not thread-safe, use one per
+// render thread.
+class DateLabelFormatter {
+
+    private static final Map<Locale, char[][]> weekdayNames = new HashMap<>();
+
+    private final Calendar calendar = Calendar.getInstance();
+    private final char[] date = new char[16];
+    @Getter private int dateLength = 0;
+    private char[] weekday = new char[0];
+
+    private long formattedDay = Long.MIN_VALUE;
+    private Locale formattedLocale = null;
+    private String formattedZoneId = null;
+
+    void setDay(long dayStart) {
+        Locale locale = Locale.getDefault();
+        TimeZone zone = TimeZone.getDefault();
+        if (dayStart == formattedDay && locale.equals(formattedLocale) && zone.getID().equals(formattedZoneId)) {
+            return;
+        }
+
+        calendar.setTimeZone(zone);
+        calendar.setTimeInMillis(dayStart);
+        int position = writeTwoDigits(date, 0, calendar.get(Calendar.DAY_OF_MONTH));
+        date[position++] = '.';
+        position = writeTwoDigits(date, position, calendar.get(Calendar.MONTH) + 1);
+        date[position++] = '.';
+        dateLength = writeNumber(date, position, calendar.get(Calendar.YEAR));
+        weekday = getWeekdayNames(locale)[calendar.get(Calendar.DAY_OF_WEEK)];
+
+        formattedDay = dayStart;
+        formattedLocale = locale;
+        formattedZoneId = zone.getID();
+    }
+
+    char[] getDate() {
+        return date;
+    }
+
+    char[] getWeekday() {
+        return weekday;
+    }
+
+    // "HH:mm" of local wall-clock time
+    static String formatTime(long milliSeconds) {
+        char[] buffer = new char[5];
+        appendTime(buffer, 0, Event.toMinuteOfDay(milliSeconds));
+        return new String(buffer);
+    }
+
+    // "dd.MM.yyyy HH:mm" of local wall-clock time
+    static String formatDateTime(long milliSeconds) {
+        DateLabelFormatter formatter = new DateLabelFormatter();
+        formatter.setDay(milliSeconds);
+        char[] buffer = new char[formatter.dateLength + 6];
+        System.arraycopy(formatter.date, 0, buffer, 0, formatter.dateLength);
+        buffer[formatter.dateLength] = ' ';
+        appendTime(buffer, formatter.dateLength + 1, Event.toMinuteOfDay(milliSeconds));
+        return new String(buffer);
+    }
+
+    private static void appendTime(char[] buffer, int position, int minuteOfDay) {
+        position = writeTwoDigits(buffer, position, minuteOfDay / 60);
+        buffer[position++] = ':';
+        writeTwoDigits(buffer, position, minuteOfDay % 60);
+    }
+
+    private static char[][] getWeekdayNames(Locale locale) {
+        synchronized (weekdayNames) {
+            char[][] names = weekdayNames.get(locale);
+            if (names == null) {
+                // Indexed by Calendar.DAY_OF_WEEK, first item is empty
+                String[] shortWeekdays = DateFormatSymbols.getInstance(locale).getShortWeekdays();
+                names = new char[shortWeekdays.length][];
+                for (int i = 0; i < shortWeekdays.length; i++) {
+                    names[i] = shortWeekdays[i].toCharArray();
+                }
+                weekdayNames.put(locale, names);
+            }
+            return names;
+        }
+    }
+
+    private static int writeTwoDigits(char[] buffer, int position, int value) {
+        buffer[position] = (char) ('0' + value / 10 % 10);
+        buffer[position + 1] = (char) ('0' + value % 10);
+        return position + 2;
+    }
+
+    // Returns position after the last written digit
+    private static int writeNumber(char[] buffer, int position, int value) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+}
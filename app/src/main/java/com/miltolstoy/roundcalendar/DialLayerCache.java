@@ -0,0 +1,52 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Bitmap;
+import android.graphics.Point;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Keeps pre-rendered static dial (body, border, markers, dots, digits) per widget size
+class DialLayerCache {
+
+    private final Map<Point, Bitmap> layers;
+
+    DialLayerCache(final int maxLayers) {
+        layers = new LinkedHashMap<Point, Bitmap>(maxLayers, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Point, Bitmap> eldest) {
+                return size() > maxLayers;
+            }
+        };
+    }
+
+    synchronized Bitmap get(Point widgetSize) {
+        return layers.get(widgetSize);
+    }
+
+    synchronized void put(Point widgetSize, Bitmap layer) {
+        layers.put(new Point(widgetSize), layer);
+    }
+
+    synchronized void clear() {
+        layers.clear();
+    }
+}
@@ -20,16 +20,12 @@ package com.miltolstoy.roundcalendar;
 
 import android.graphics.Color;
 import android.support.v4.graphics.ColorUtils;
-import android.util.Log;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Locale;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
-import static com.miltolstoy.roundcalendar.Logging.TAG;
-
+@EqualsAndHashCode
 class Event {
 
     @Getter private String title;
@@ -37,6 +33,9 @@ class Event {
     private long finish;
     @Getter private boolean allDay;
     @Getter private int color = Color.TRANSPARENT;
+    // local wall-clock time of event bounds, used for drawing and grouping instead of formatted strings
+    @Getter private int startMinuteOfDay;
+    @Getter private int finishMinuteOfDay;
 
     Event(String title, String start, String finish, String duration, String allDay, int color) {
         this(title, start, finish, duration, allDay);
@@ -48,18 +47,28 @@ class Event {
                 ((allDay != null) && allDay.equals("1")));
     }
 
+    // color is used as is, without blending
+    Event(String title, long start, long finish, boolean allDay, int color) {
+        this(title, start, finish, 0, allDay);
+        this.color = color;
+    }
+
     Event(String title, long start, long finish, long duration, boolean allDay) {
-        Log.d(TAG, "Creating event." +
-                "\nTitle: " + title +
-                "\nStart: " + formatToDateTime(start) + " (" + start + ")" +
-                "\nFinish: " + formatToDateTime(finish) + " (" + finish + ")" +
-                "\nDuration: " + duration +
-                "\nAll-day: " + allDay + "\n");
+        if (Logging.DEBUG) {
+            Logging.d("Creating event." +
+                    "\nTitle: " + title +
+                    "\nStart: " + formatToDateTime(start) + " (" + start + ")" +
+                    "\nFinish: " + formatToDateTime(finish) + " (" + finish + ")" +
+                    "\nDuration: " + duration +
+                    "\nAll-day: " + allDay + "\n");
+        }
 
         this.title = title;
         this.start = start;
         this.finish = (finish != 0) ? finish : (this.start + duration);
         this.allDay = allDay;
+        startMinuteOfDay = toMinuteOfDay(this.start);
+        finishMinuteOfDay = toMinuteOfDay(this.finish);
     }
 
     String getStartTime() {
@@ -71,44 +80,34 @@ class Event {
     }
 
     boolean isFinishedInFirstDayHalf() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(finish);
-        return calendar.get(Calendar.HOUR_OF_DAY) < 12;
+        return finishMinuteOfDay < ClockWidget.MINUTES_IN_DAY / 2;
     }
 
     int getStartDate() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(start);
-        return calendar.get(Calendar.DATE);
+        return DayWindowService.getDayOfMonth(start);
     }
 
     int getFinishDate() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(finish);
-        return calendar.get(Calendar.DATE);
+        return DayWindowService.getDayOfMonth(finish);
     }
 
+    static int toMinuteOfDay(long milliSeconds) {
+        return DayWindowService.toMinuteOfDay(milliSeconds);
+    }
 
     private String formatToTime(long milliSeconds) {
-        return formatTimestamp(milliSeconds, "HH:mm");
+        return DateLabelFormatter.formatTime(milliSeconds);
     }
 
     private String formatToDateTime(long milliSeconds) {
-        return formatTimestamp(milliSeconds, "dd.MM.YY HH:mm");
-    }
-
-    private String formatTimestamp(long milliSeconds, String format) {
-        SimpleDateFormat formatter = new SimpleDateFormat(format, Locale.US);
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(milliSeconds);
-        return formatter.format(calendar.getTime());
+        return DateLabelFormatter.formatDateTime(milliSeconds);
     }
 
     private static long parseLongSafe(String value) {
         try {
             return Long.parseLong(value);
         } catch (NumberFormatException e) {
-            Log.e(TAG, "Failed to parse event time. Value: " + value);
+            Logging.e("Failed to parse event time. Value: " + value);
             return 0;
         }
     }
@@ -117,7 +116,7 @@ class Event {
         try {
             return Rfc5545Duration.toMilliSeconds(duration);
         } catch (IllegalArgumentException e) {
-            Log.w(TAG, e.getMessage());
+            Logging.w(e.getMessage());
             return 0;
         }
     }
@@ -0,0 +1,142 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Canvas;
+import android.graphics.Path;
+import android.graphics.Point;
+import android.graphics.RectF;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.Getter;
+
+// Collects event sectors and their separator lines, so that all of them with the same color are drawn with one
+// drawPath call for sectors and one for separators, instead of drawArc and two drawLine calls per event. Sectors are
+// translucent, so where they overlap the later one must still be drawn over the earlier one: every event is put one
+// layer above the highest earlier event it overlaps. Sectors of a layer do not overlap each other and are drawn in
+// any color order, layers are drawn one by one.
+class EventArcBatch {
+
+    private static final float minSweep = (float) 0.5;
+    // Adjacent events share an edge, it is not an overlap
+    private static final float overlapEpsilon = (float) 0.001;
+
+    private final ClockWidget clockWidget;
+    // Per layer: color -> {sectors, separators}
+    private final List<SparseArray<Path[]>> layers = new ArrayList<>();
+    private float[] starts = new float[8];
+    private float[] sweeps = new float[8];
+    private int[] eventLayers = new int[8];
+    @Getter private int eventCount = 0;
+
+    EventArcBatch(ClockWidget clockWidget) {
+        this.clockWidget = clockWidget;
+    }
+
+    // Returns layer of the event. Sweep is widened to the minimal visible one, as single event drawing did.
+    int add(ClockWidget.EventDegreeData degrees, int color) {
+        float start = normalize(degrees.getStart());
+        float sweep = Math.max(degrees.getSweep(), minSweep);
+        int layer = 0;
+        for (int i = 0; i < eventCount; i++) {
+            if (eventLayers[i] >= layer && overlap(starts[i], sweeps[i], start, sweep)) {
+                layer = eventLayers[i] + 1;
+            }
+        }
+
+        if (eventCount == starts.length) {
+            starts = Arrays.copyOf(starts, eventCount * 2);
+            sweeps = Arrays.copyOf(sweeps, eventCount * 2);
+            eventLayers = Arrays.copyOf(eventLayers, eventCount * 2);
+        }
+        starts[eventCount] = start;
+        sweeps[eventCount] = sweep;
+        eventLayers[eventCount] = layer;
+        eventCount++;
+        RenderMetrics.increment(RenderMetrics.Counter.EVENT_ARCS_BATCHED);
+
+        while (layers.size() <= layer) {
+            layers.add(new SparseArray<Path[]>());
+        }
+        Path[] paths = layers.get(layer).get(color);
+        if (paths == null) {
+            paths = new Path[] {new Path(), new Path()};
+            layers.get(layer).put(color, paths);
+        }
+        addEvent(paths[0], paths[1], degrees.getStart(), sweep);
+        return layer;
+    }
+
+    int getLayerCount() {
+        return layers.size();
+    }
+
+    // Number of drawPath calls to draw all layers
+    int getPathCount() {
+        int count = 0;
+        for (SparseArray<Path[]> layer : layers) {
+            count += 2 * layer.size();
+        }
+        return count;
+    }
+
+    // Sectors of the whole layer go first, so separators on shared edges are not covered by a neighbour sector
+    void drawLayer(Canvas canvas, int layer, PaintTable paints) {
+        SparseArray<Path[]> colorPaths = layers.get(layer);
+        for (int i = 0; i < colorPaths.size(); i++) {
+            canvas.drawPath(colorPaths.valueAt(i)[0], paints.getEventArcPaint(colorPaths.keyAt(i)));
+        }
+        for (int i = 0; i < colorPaths.size(); i++) {
+            canvas.drawPath(colorPaths.valueAt(i)[1], paints.getEventSeparatorPaint(colorPaths.keyAt(i)));
+        }
+        RenderMetrics.add(RenderMetrics.Counter.EVENT_ARC_DRAW_CALLS, 2 * colorPaths.size());
+    }
+
+    // Same shapes as Canvas.drawArc with useCenter and drawLine from center to both arc ends
+    private void addEvent(Path sectors, Path separators, float startAngle, float sweepAngle) {
+        Point center = clockWidget.getCenter();
+        RectF oval = clockWidget.getWidgetCircleObject();
+        sectors.moveTo(center.x, center.y);
+        sectors.arcTo(oval, startAngle, sweepAngle);
+        sectors.close();
+
+        List<Point> circlePoints = clockWidget.calculateEventCirclePoints(startAngle + 90, sweepAngle);
+        for (Point point : circlePoints) {
+            separators.moveTo(center.x, center.y);
+            separators.lineTo(point.x, point.y);
+        }
+    }
+
+    private static float normalize(float degree) {
+        float normalized = degree % 360;
+        return normalized < 0 ? normalized + 360 : normalized;
+    }
+
+    private static boolean overlap(float startA, float sweepA, float startB, float sweepB) {
+        return startsInside(startA, sweepA, startB) || startsInside(startB, sweepB, startA);
+    }
+
+    private static boolean startsInside(float start, float sweep, float point) {
+        return normalize(point - start) < sweep - overlapEpsilon;
+    }
+}
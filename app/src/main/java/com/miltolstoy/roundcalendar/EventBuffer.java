@@ -0,0 +1,235 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.database.Cursor;
+import android.graphics.Color;
+import android.support.v4.graphics.ColorUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.Getter;
+
+import static android.provider.CalendarContract.Events.ALL_DAY;
+import static android.provider.CalendarContract.Events.DISPLAY_COLOR;
+import static android.provider.CalendarContract.Events.DTEND;
+import static android.provider.CalendarContract.Events.DTSTART;
+import static android.provider.CalendarContract.Events.DURATION;
+import static android.provider.CalendarContract.Events.TITLE;
+import static android.provider.CalendarContract.Instances.BEGIN;
+import static android.provider.CalendarContract.Instances.END;
+
+// Column-oriented storage of events: one array per event property, row index identifies an event. Lets events be
+// read from cursor and drawn without creating an object per event.
+class EventBuffer implements EventTimes {
+
+    static final String[] PROJECTION = new String[] {TITLE, DTSTART, DTEND, DURATION, ALL_DAY, DISPLAY_COLOR, BEGIN,
+            END};
+
+    private static final int defaultCapacity = 16;
+
+    @Getter private int size = 0;
+    private String[] titles;
+    private long[] begins;
+    private long[] ends;
+    private int[] colors;
+    private boolean[] allDays;
+    private int[] startMinutes;
+    private int[] finishMinutes;
+    // instance bounds as reported by provider, used to split events between days
+    private long[] instanceBegins;
+    private long[] instanceEnds;
+
+    EventBuffer() {
+        this(defaultCapacity);
+    }
+
+    EventBuffer(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    static EventBuffer fromCursor(Cursor cursor) {
+        EventBuffer buffer = new EventBuffer(cursor.getCount());
+        if (!cursor.moveToFirst()) {
+            return buffer;
+        }
+
+        final int titleIndex = cursor.getColumnIndexOrThrow(TITLE);
+        final int startIndex = cursor.getColumnIndexOrThrow(DTSTART);
+        final int finishIndex = cursor.getColumnIndexOrThrow(DTEND);
+        final int durationIndex = cursor.getColumnIndexOrThrow(DURATION);
+        final int allDayIndex = cursor.getColumnIndexOrThrow(ALL_DAY);
+        final int colorIndex = cursor.getColumnIndexOrThrow(DISPLAY_COLOR);
+        final int beginIndex = cursor.getColumnIndexOrThrow(BEGIN);
+        final int endIndex = cursor.getColumnIndexOrThrow(END);
+        do {
+            long start = cursor.isNull(startIndex) ? 0 : cursor.getLong(startIndex);
+            long finish = cursor.isNull(finishIndex) ? 0 : cursor.getLong(finishIndex);
+            if (finish == 0) {
+                finish = start + parseDurationSafe(cursor.getString(durationIndex));
+            }
+            buffer.add(cursor.getString(titleIndex), start, finish,
+                    ColorUtils.blendARGB(cursor.getInt(colorIndex), Color.BLACK, 0.1f),
+                    cursor.getInt(allDayIndex) == 1, cursor.getLong(beginIndex), cursor.getLong(endIndex));
+        } while (cursor.moveToNext());
+        return buffer;
+    }
+
+    void add(String title, long begin, long end, int color, boolean allDay, long instanceBegin, long instanceEnd) {
+        if (size == titles.length) {
+            grow();
+        }
+        titles[size] = title;
+        begins[size] = begin;
+        ends[size] = end;
+        colors[size] = color;
+        allDays[size] = allDay;
+        startMinutes[size] = Event.toMinuteOfDay(begin);
+        finishMinutes[size] = Event.toMinuteOfDay(end);
+        instanceBegins[size] = instanceBegin;
+        instanceEnds[size] = instanceEnd;
+        size++;
+    }
+
+    void addFrom(EventBuffer other, int index) {
+        add(other.titles[index], other.begins[index], other.ends[index], other.colors[index], other.allDays[index],
+                other.instanceBegins[index], other.instanceEnds[index]);
+    }
+
+    String getTitle(int index) {
+        return titles[index];
+    }
+
+    long getBegin(int index) {
+        return begins[index];
+    }
+
+    long getEnd(int index) {
+        return ends[index];
+    }
+
+    int getColor(int index) {
+        return colors[index];
+    }
+
+    @Override
+    public boolean isAllDay(int index) {
+        return allDays[index];
+    }
+
+    @Override
+    public int getStartMinuteOfDay(int index) {
+        return startMinutes[index];
+    }
+
+    @Override
+    public int getFinishMinuteOfDay(int index) {
+        return finishMinutes[index];
+    }
+
+    long getInstanceBegin(int index) {
+        return instanceBegins[index];
+    }
+
+    long getInstanceEnd(int index) {
+        return instanceEnds[index];
+    }
+
+    boolean isFinishedInFirstDayHalf(int index) {
+        return finishMinutes[index] < ClockWidget.MINUTES_IN_DAY / 2;
+    }
+
+    Event toEvent(int index) {
+        return new Event(titles[index], begins[index], ends[index], allDays[index], colors[index]);
+    }
+
+    List<Event> toEvents() {
+        List<Event> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(toEvent(i));
+        }
+        return events;
+    }
+
+    boolean contentEquals(EventBuffer other) {
+        if (other == null || size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (begins[i] != other.begins[i] || ends[i] != other.ends[i] || colors[i] != other.colors[i] ||
+                    allDays[i] != other.allDays[i] || !equalTitles(titles[i], other.titles[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Consistent with contentEquals
+    int contentHash() {
+        int hash = size;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + (titles[i] == null ? 0 : titles[i].hashCode());
+            hash = 31 * hash + (int) (begins[i] ^ (begins[i] >>> 32));
+            hash = 31 * hash + (int) (ends[i] ^ (ends[i] >>> 32));
+            hash = 31 * hash + colors[i];
+            hash = 31 * hash + (allDays[i] ? 1 : 0);
+        }
+        return hash;
+    }
+
+    private static boolean equalTitles(String first, String second) {
+        return (first == null) ? (second == null) : first.equals(second);
+    }
+
+    private void allocate(int capacity) {
+        titles = new String[capacity];
+        begins = new long[capacity];
+        ends = new long[capacity];
+        colors = new int[capacity];
+        allDays = new boolean[capacity];
+        startMinutes = new int[capacity];
+        finishMinutes = new int[capacity];
+        instanceBegins = new long[capacity];
+        instanceEnds = new long[capacity];
+    }
+
+    private void grow() {
+        int capacity = titles.length * 2;
+        titles = Arrays.copyOf(titles, capacity);
+        begins = Arrays.copyOf(begins, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        allDays = Arrays.copyOf(allDays, capacity);
+        startMinutes = Arrays.copyOf(startMinutes, capacity);
+        finishMinutes = Arrays.copyOf(finishMinutes, capacity);
+        instanceBegins = Arrays.copyOf(instanceBegins, capacity);
+        instanceEnds = Arrays.copyOf(instanceEnds, capacity);
+    }
+
+    private static long parseDurationSafe(String duration) {
+        try {
+            return Rfc5545Duration.toMilliSeconds(duration);
+        } catch (IllegalArgumentException e) {
+            Logging.w(e.getMessage());
+            return 0;
+        }
+    }
+}
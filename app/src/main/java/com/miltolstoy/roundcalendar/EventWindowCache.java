@@ -0,0 +1,226 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.os.SystemClock;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import lombok.Getter;
+
+
+// Keeps per-day event lists for a window of days around the displayed one, so paging between days is answered
+// from memory. Window is fetched with a single instances query and slides (with prefetch) as days shift moves.
+class EventWindowCache {
+
+    interface Source {
+        String getSelectionKey();
+        long getDayStart(int daysShift);
+        EventBuffer queryInstances(long rangeStart, long rangeEnd);
+    }
+
+    private static final int prefetchMarginDays = 1;
+
+    private final int windowRadiusDays;
+    private final int maxRetainedDays;
+    private final long maxAgeMillis;
+    private final Map<Long, DayEntry> days;
+    private String selectionKey = null;
+    private boolean prefetchInProgress = false;
+    private boolean observed = false;
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "EventWindowPrefetch");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    @Getter private volatile long hitCount = 0;
+    @Getter private volatile long missCount = 0;
+
+    EventWindowCache(int windowRadiusDays, final int maxRetainedDays, long maxAgeMillis) {
+        this.windowRadiusDays = windowRadiusDays;
+        this.maxRetainedDays = Math.max(maxRetainedDays, 2 * windowRadiusDays + 1);
+        this.maxAgeMillis = maxAgeMillis;
+        days = new LinkedHashMap<Long, DayEntry>(this.maxRetainedDays, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, DayEntry> eldest) {
+                return size() > EventWindowCache.this.maxRetainedDays;
+            }
+        };
+    }
+
+    // Returned buffer is shared with the cache and must not be modified
+    EventBuffer getDayEvents(Source source, int daysShift) {
+        String key = source.getSelectionKey();
+        long dayStart = source.getDayStart(daysShift);
+        synchronized (this) {
+            if (!key.equals(selectionKey)) {
+                Logging.d("Calendars selection changed, dropping cached days");
+                days.clear();
+                selectionKey = key;
+            }
+            DayEntry entry = getFreshEntry(dayStart);
+            if (entry != null) {
+                hitCount++;
+                prefetchIfNeeded(source, daysShift);
+                return entry.events;
+            }
+            missCount++;
+        }
+
+        Map<Long, EventBuffer> window = fetchWindow(source, daysShift);
+        store(key, window);
+        EventBuffer events = window.get(dayStart);
+        return (events != null) ? events : new EventBuffer();
+    }
+
+    synchronized void clear() {
+        days.clear();
+    }
+
+    // Cached days are re-fetched on next access. Called when calendar provider reports a change.
+    synchronized void markDirty() {
+        for (DayEntry entry : days.values()) {
+            entry.dirty = true;
+        }
+    }
+
+    // While provider changes are observed, cached days do not expire by age: only markDirty() invalidates them
+    synchronized void setObserved(boolean observed) {
+        this.observed = observed;
+    }
+
+    // Re-fetches window around the day and returns whether the day events differ from the previously cached ones
+    boolean refreshDay(Source source, int daysShift) {
+        String key = source.getSelectionKey();
+        long dayStart = source.getDayStart(daysShift);
+        EventBuffer previousEvents;
+        synchronized (this) {
+            if (!key.equals(selectionKey)) {
+                return true;
+            }
+            DayEntry entry = days.get(dayStart);
+            previousEvents = (entry != null) ? entry.events : null;
+        }
+
+        Map<Long, EventBuffer> window = fetchWindow(source, daysShift);
+        store(key, window);
+        return (previousEvents == null) || !previousEvents.contentEquals(window.get(dayStart));
+    }
+
+    private DayEntry getFreshEntry(long dayStart) {
+        DayEntry entry = days.get(dayStart);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.dirty || (!observed && SystemClock.elapsedRealtime() - entry.fetchTime > maxAgeMillis)) {
+            days.remove(dayStart);
+            return null;
+        }
+        return entry;
+    }
+
+    private void prefetchIfNeeded(final Source source, final int daysShift) {
+        if (prefetchInProgress) {
+            return;
+        }
+        if (getFreshEntry(source.getDayStart(daysShift - prefetchMarginDays)) != null &&
+                getFreshEntry(source.getDayStart(daysShift + prefetchMarginDays)) != null) {
+            return;
+        }
+
+        prefetchInProgress = true;
+        final String key = selectionKey;
+        prefetchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (Logging.DEBUG) {
+                        Logging.d("Prefetching events window around days shift " + daysShift);
+                    }
+                    store(key, fetchWindow(source, daysShift));
+                } finally {
+                    synchronized (EventWindowCache.this) {
+                        prefetchInProgress = false;
+                    }
+                }
+            }
+        });
+    }
+
+    private synchronized void store(String key, Map<Long, EventBuffer> window) {
+        if (!key.equals(selectionKey)) {
+            return; // selection was changed while window was fetched
+        }
+        long fetchTime = SystemClock.elapsedRealtime();
+        for (Map.Entry<Long, EventBuffer> day : window.entrySet()) {
+            days.put(day.getKey(), new DayEntry(day.getValue(), fetchTime));
+        }
+    }
+
+    private Map<Long, EventBuffer> fetchWindow(Source source, int centerDaysShift) {
+        int daysCount = 2 * windowRadiusDays + 1;
+        long[] dayStarts = new long[daysCount + 1];
+        for (int i = 0; i <= daysCount; i++) {
+            dayStarts[i] = source.getDayStart(centerDaysShift - windowRadiusDays + i);
+        }
+        EventBuffer instances = source.queryInstances(dayStarts[0], dayStarts[daysCount]);
+
+        // multi-day instances are put to every day they cross, same as single day instances query does
+        Map<Long, EventBuffer> window = new LinkedHashMap<>();
+        for (int day = 0; day < daysCount; day++) {
+            long dayStart = dayStarts[day];
+            long nextDayStart = dayStarts[day + 1];
+            EventBuffer dayEvents = new EventBuffer();
+            for (int i = 0; i < instances.getSize(); i++) {
+                if (instances.getInstanceBegin(i) > nextDayStart || instances.getInstanceEnd(i) < dayStart) {
+                    continue;
+                }
+                long finish = instances.getEnd(i);
+                if (instances.isAllDay(i) && finish >= dayStart && finish < nextDayStart) {
+                    continue; // all-day event, which actually ended yesterday, but have finish time today at 3:00
+                }
+                dayEvents.addFrom(instances, i);
+            }
+            window.put(dayStart, dayEvents);
+        }
+        if (Logging.DEBUG) {
+            Logging.d("Fetched " + instances.getSize() + " instances for " + daysCount + " days");
+        }
+        return window;
+    }
+
+    private static class DayEntry {
+        private EventBuffer events;
+        private long fetchTime;
+        private boolean dirty = false;
+
+        DayEntry(EventBuffer events, long fetchTime) {
+            this.events = events;
+            this.fetchTime = fetchTime;
+        }
+    }
+}
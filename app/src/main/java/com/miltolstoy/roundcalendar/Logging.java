@@ -18,6 +18,30 @@ along with this program.  If not, see <http://www.gnu.org/licenses/>.
 
 package com.miltolstoy.roundcalendar;
 
+import android.util.Log;
+
+// Logging facade. Debug messages are dropped in release builds. DEBUG is not a compile-time constant (BuildConfig
+// value is parsed at runtime), so a debug message which is built (concatenation, formatting, toString) is still built
+// in release unless the call is guarded with "if (Logging.DEBUG)". Constant messages need no guard.
 class Logging {
     static final String TAG = "RoundCalendar";
+    static final boolean DEBUG = BuildConfig.DEBUG;
+
+    static void d(String message) {
+        if (DEBUG) {
+            Log.d(TAG, message);
+        }
+    }
+
+    static void i(String message) {
+        Log.i(TAG, message);
+    }
+
+    static void w(String message) {
+        Log.w(TAG, String.valueOf(message));
+    }
+
+    static void e(String message) {
+        Log.e(TAG, String.valueOf(message));
+    }
 }
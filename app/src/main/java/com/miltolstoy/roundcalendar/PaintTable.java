@@ -0,0 +1,156 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.support.v4.graphics.ColorUtils;
+import android.util.SparseArray;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+class PaintTable {
+
+    enum Type {
+        DOTS,
+        FILL,
+        BORDER,
+        HAND,
+        SMALL_DIGITS,
+        BIG_DIGITS,
+        DATE,
+        EVENT_LINE,
+        SLEEP_EVENT_LINE,
+        TITLE,
+    }
+
+    private static final int eventArcAlpha = 100;
+    private static final Map<ClockWidget, PaintTable> tables = new WeakHashMap<>();
+
+    private final Paint[] paints = new Paint[Type.values().length];
+    // per-color variants of EVENT_LINE paint: arcs use event color, separator lines use a darker one
+    private final SparseArray<Paint> eventArcPaints = new SparseArray<>();
+    private final SparseArray<Paint> eventSeparatorPaints = new SparseArray<>();
+    private final int defaultEventColor;
+
+    static PaintTable obtain(ClockWidget clockWidget) {
+        synchronized (tables) {
+            PaintTable table = tables.get(clockWidget);
+            if (table == null) {
+                table = new PaintTable(clockWidget);
+                tables.put(clockWidget, table);
+            }
+            return table;
+        }
+    }
+
+    PaintTable(ClockWidget clockWidget) {
+        Paint dotsPaint = new Paint();
+        dotsPaint.setColor(clockWidget.getBorderColor());
+        dotsPaint.setStrokeWidth(2 * clockWidget.getDotRadius()); // dots are drawn as round points
+        dotsPaint.setStrokeCap(Paint.Cap.ROUND);
+        paints[Type.DOTS.ordinal()] = dotsPaint;
+
+        Paint fillPaint = new Paint();
+        fillPaint.setStyle(Paint.Style.FILL);
+        fillPaint.setColor(clockWidget.getFillColor());
+        paints[Type.FILL.ordinal()] = fillPaint;
+
+        Paint borderPaint = new Paint();
+        borderPaint.setStyle(Paint.Style.STROKE);
+        borderPaint.setColor(clockWidget.getBorderColor());
+        borderPaint.setStrokeWidth(clockWidget.getBorderWidth());
+        paints[Type.BORDER.ordinal()] = borderPaint;
+
+        Paint handPaint = new Paint();
+        handPaint.setColor(Color.RED);
+        handPaint.setStrokeWidth(clockWidget.getHandWidth());
+        paints[Type.HAND.ordinal()] = handPaint;
+
+        Paint smallDigitsPaint = new Paint();
+        smallDigitsPaint.setTextSize(clockWidget.getSmallDigitSize());
+        smallDigitsPaint.setTextAlign(Paint.Align.CENTER);
+        smallDigitsPaint.setColor(clockWidget.getDigitColor());
+        paints[Type.SMALL_DIGITS.ordinal()] = smallDigitsPaint;
+
+        Paint bigDigitsPaint = new Paint();
+        bigDigitsPaint.setTextSize(clockWidget.getBigDigitSize());
+        bigDigitsPaint.setTextAlign(Paint.Align.CENTER);
+        bigDigitsPaint.setColor(clockWidget.getDigitColor());
+        paints[Type.BIG_DIGITS.ordinal()] = bigDigitsPaint;
+
+        Paint datePaint = new Paint();
+        datePaint.setTextSize(clockWidget.getDateSize());
+        datePaint.setTextAlign(Paint.Align.LEFT);
+        datePaint.setColor(clockWidget.getDigitColor());
+        paints[Type.DATE.ordinal()] = datePaint;
+
+        Paint eventLinePaint = new Paint();
+        eventLinePaint.setColor(clockWidget.getEventArcColor());
+        eventLinePaint.setAlpha(eventArcAlpha);
+        eventLinePaint.setStyle(Paint.Style.FILL_AND_STROKE);
+        paints[Type.EVENT_LINE.ordinal()] = eventLinePaint;
+
+        Paint sleepEventLinePaint = new Paint();
+        sleepEventLinePaint.setColor(Color.GRAY);
+        sleepEventLinePaint.setAlpha(eventArcAlpha);
+        sleepEventLinePaint.setStyle(Paint.Style.FILL_AND_STROKE);
+        paints[Type.SLEEP_EVENT_LINE.ordinal()] = sleepEventLinePaint;
+
+        Paint textTitlePaint = new Paint();
+        textTitlePaint.setTextSize(clockWidget.getTitleSize());
+        textTitlePaint.setColor(clockWidget.getEventTitleColor());
+        paints[Type.TITLE.ordinal()] = textTitlePaint;
+
+        for (Paint p : paints) {
+            p.setAntiAlias(true);
+        }
+
+        defaultEventColor = eventLinePaint.getColor();
+    }
+
+    Paint get(Type type) {
+        return paints[type.ordinal()];
+    }
+
+    int getDefaultEventColor() {
+        return defaultEventColor;
+    }
+
+    synchronized Paint getEventArcPaint(int color) {
+        Paint paint = eventArcPaints.get(color);
+        if (paint == null) {
+            paint = new Paint(get(Type.EVENT_LINE));
+            paint.setColor(color);
+            eventArcPaints.put(color, paint);
+        }
+        return paint;
+    }
+
+    synchronized Paint getEventSeparatorPaint(int color) {
+        Paint paint = eventSeparatorPaints.get(color);
+        if (paint == null) {
+            paint = new Paint(get(Type.EVENT_LINE));
+            paint.setColor(ColorUtils.blendARGB(color, Color.BLACK, 0.1f));
+            eventSeparatorPaints.put(color, paint);
+        }
+        return paint;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+// Render pipeline instrumentation: latency histogram with fixed buckets per render phase, and event counters.
+// Recording is a few atomic increments made by the renders themselves, nothing runs between renders. Dump adds
+// counters of pipeline caches and is shown on the configuration screen in debug builds, and by
+// "adb shell dumpsys activity top" while the configuration screen is open.
+class RenderMetrics {
+
+    enum Phase {
+        QUERY,      // calendar provider query
+        PARSE,      // cursor rows to event buffer
+        LAYOUT,     // ClockView drawing logic, recorded into picture
+        RASTER,     // picture replay into widget bitmap
+        UPDATE      // updateAppWidget IPC
+    }
+
+    enum Counter {
+        RENDERS,
+        SKIPPED_RENDERS,
+        STALE_RENDERS,
+        FAILED_RENDERS,
+        ALARM_TICKS,
+        QUERY_ROWS,
+        EVENT_ARCS_BATCHED,
+        EVENT_ARC_DRAW_CALLS
+    }
+
+    // Upper bounds of histogram buckets in milliseconds, the last bucket takes the rest
+    private static final long[] bucketBoundsMillis = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+
+    static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(bucketBoundsMillis.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        long getBucketCount(int bucket) {
+            return buckets.get(bucket);
+        }
+
+        long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        private void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+        }
+    }
+
+    private static final Histogram[] histograms = new Histogram[Phase.values().length];
+    private static final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    // Start of a measured phase, pass it to record() when the phase is done
+    static long start() {
+        return System.nanoTime();
+    }
+
+    static void record(Phase phase, long startNanos) {
+        histograms[phase.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    static void increment(Counter counter) {
+        counters.incrementAndGet(counter.ordinal());
+    }
+
+    static void add(Counter counter, long value) {
+        counters.addAndGet(counter.ordinal(), value);
+    }
+
+    static long getCount(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    static Histogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    static int bucketOf(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        for (int i = 0; i < bucketBoundsMillis.length; i++) {
+            if (millis < bucketBoundsMillis[i]) {
+                return i;
+            }
+        }
+        return bucketBoundsMillis.length;
+    }
+
+    static void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    static void dump(PrintWriter writer) {
+        writer.println("Render phases, ms:");
+        for (Phase phase : Phase.values()) {
+            dumpHistogram(writer, phase.name(), histograms[phase.ordinal()]);
+        }
+
+        writer.println("Counters:");
+        for (Counter counter : Counter.values()) {
+            dumpCounter(writer, counter.name(), getCount(counter));
+        }
+        dumpCounter(writer, "RENDER_REQUESTS_COLLAPSED", WidgetRenderer.getRenderQueue().getCollapsedCount());
+        dumpCounter(writer, "SCENE_PICTURES_RECORDED", WidgetRenderer.getScenePictures().getRecordCount());
+        dumpCounter(writer, "SCENE_PICTURES_REPLAYED", WidgetRenderer.getScenePictures().getReplayCount());
+        dumpCounter(writer, "DAY_WINDOWS_COMPUTED", DayWindowService.getComputedDaysCount());
+
+        writer.println("Caches, hits / misses:");
+        dumpCache(writer, "BitmapPool", WidgetConfigurationActivity.bitmapPool.getHitCount(),
+                WidgetConfigurationActivity.bitmapPool.getMissCount());
+        dumpCache(writer, "EventWindowCache", CalendarAdapter.getEventWindowCache().getHitCount(),
+                CalendarAdapter.getEventWindowCache().getMissCount());
+        dumpCache(writer, "TitleLayoutCache", ClockView.getTitleLayoutCache().getHitCount(),
+                ClockView.getTitleLayoutCache().getMissCount());
+        writer.flush();
+    }
+
+    // Example: "  LAYOUT count=12 avg=3.10 max=9.87 | <1:0 <2:3 <4:7 <8:1 <16:1 ... >=1024:0"
+    private static void dumpHistogram(PrintWriter writer, String name, Histogram histogram) {
+        long count = histogram.getCount();
+        writer.print(String.format(Locale.US, "  %s count=%d avg=%.2f max=%.2f |", name, count,
+                count == 0 ? 0 : toMillis(histogram.getTotalNanos()) / count, toMillis(histogram.getMaxNanos())));
+        for (int i = 0; i < bucketBoundsMillis.length; i++) {
+            writer.print(" <" + bucketBoundsMillis[i] + ":" + histogram.getBucketCount(i));
+        }
+        writer.println(" >=" + bucketBoundsMillis[bucketBoundsMillis.length - 1] + ":"
+                + histogram.getBucketCount(bucketBoundsMillis.length));
+    }
+
+    private static void dumpCounter(PrintWriter writer, String name, long value) {
+        writer.println("  " + name + "=" + value);
+    }
+
+    private static void dumpCache(PrintWriter writer, String name, long hits, long misses) {
+        writer.println("  " + name + " " + hits + " / " + misses);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
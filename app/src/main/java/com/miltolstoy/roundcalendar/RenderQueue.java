@@ -0,0 +1,116 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+
+// Pending widget renders, at most one per widget. A request for a widget which is already queued collapses into the
+// queued one: it takes the highest priority and keeps the queue position of the first one. Widget state is not
+// queued, render takes the newest one when it starts. Requests are taken by priority, then in queue order. Every
+// offer also takes a new widget token, so a render which is already running can check whether a newer one was
+// requested meanwhile.
+class RenderQueue {
+
+    // Declaration order is the priority order
+    enum Priority {
+        NAVIGATION,
+        TICK,
+        CONTENT_CHANGE
+    }
+
+    static class Request {
+        @Getter private final int widgetId;
+        @Getter private Priority priority;
+        @Getter private int token;
+        private final long sequence;
+        private final List<Runnable> completions = new ArrayList<>();
+
+        private Request(int widgetId, long sequence) {
+            this.widgetId = widgetId;
+            this.sequence = sequence;
+        }
+
+        // Completions of all collapsed requests are run with the surviving one
+        void complete() {
+            for (Runnable completion : completions) {
+                completion.run();
+            }
+        }
+    }
+
+    private final SparseArray<Request> pendingRequests = new SparseArray<>();
+    private final SparseIntArray widgetTokens = new SparseIntArray();
+    private long sequence = 0;
+
+    @Getter private volatile long collapsedCount = 0;
+
+    // Returns true if request was collapsed into already queued one
+    synchronized boolean offer(int widgetId, Priority priority, Runnable completion) {
+        int token = widgetTokens.get(widgetId) + 1;
+        widgetTokens.put(widgetId, token);
+
+        Request request = pendingRequests.get(widgetId);
+        boolean collapsed = request != null;
+        if (collapsed) {
+            collapsedCount++;
+            if (priority.ordinal() < request.priority.ordinal()) {
+                request.priority = priority;
+            }
+        } else {
+            request = new Request(widgetId, sequence++);
+            request.priority = priority;
+            pendingRequests.put(widgetId, request);
+        }
+        request.token = token;
+        if (completion != null) {
+            request.completions.add(completion);
+        }
+        return collapsed;
+    }
+
+    synchronized Request poll() {
+        Request best = null;
+        for (int i = 0; i < pendingRequests.size(); i++) {
+            Request request = pendingRequests.valueAt(i);
+            if (best == null || request.priority.ordinal() < best.priority.ordinal()
+                    || (request.priority == best.priority && request.sequence < best.sequence)) {
+                best = request;
+            }
+        }
+        if (best != null) {
+            pendingRequests.remove(best.widgetId);
+        }
+        return best;
+    }
+
+    synchronized boolean isCurrent(Request request) {
+        return widgetTokens.get(request.widgetId) == request.token;
+    }
+
+    synchronized int size() {
+        return pendingRequests.size();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Point;
+
+import java.util.Locale;
+
+
+// Cheap 64-bit hash (FNV-1a over values) of everything the widget picture depends on: widget size, displayed day,
+// hand end pixel, events, settings and default locale of the date labels. Equal fingerprints mean the widget would be rendered pixel-identical.
+class SceneFingerprint {
+
+    private static final long offsetBasis = 0xcbf29ce484222325L;
+    private static final long prime = 0x100000001b3L;
+
+    private long hash = offsetBasis;
+
+    static long of(Point widgetSize, long dayStart, Point handEnd, EventBuffer events, boolean useCalendarColors,
+                   WidgetStateStore.WidgetState state) {
+        SceneFingerprint fingerprint = new SceneFingerprint()
+                .add(widgetSize.x)
+                .add(widgetSize.y)
+                .add(dayStart)
+                .add(useCalendarColors ? 1 : 0)
+                .add(state.getSleepStartTime().getHours())
+                .add(state.getSleepStartTime().getMinutes())
+                .add(state.getSleepEndTime().getHours())
+                .add(state.getSleepEndTime().getMinutes())
+                .add(events.contentHash())
+                .add(Locale.getDefault().hashCode());
+        if (handEnd == null) {
+            fingerprint.add(-1);
+        } else {
+            fingerprint.add(handEnd.x).add(handEnd.y);
+        }
+        return fingerprint.get();
+    }
+
+    SceneFingerprint add(long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (8 * i)) & 0xff;
+            hash *= prime;
+        }
+        return this;
+    }
+
+    long get() {
+        return hash;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Picture;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+// Keeps the last recorded widget pictures per widget together with their scene fingerprints. Picture holds ClockView
+// drawing commands with all layout already computed, so a repeated render of the same scene is only a replay into
+// the target canvas. A few recent scenes are kept per widget, so going back to today after day navigation or
+// returning to the previous orientation size replays too. Picture is recorded again only when some render input,
+// i.e. the fingerprint, is changed.
+class ScenePictureCache {
+
+    private static class Entry {
+        private final long fingerprint;
+        private final Picture picture;
+
+        Entry(long fingerprint, Picture picture) {
+            this.fingerprint = fingerprint;
+            this.picture = picture;
+        }
+    }
+
+    private final int picturesPerWidget;
+    // Per widget, most recently used first
+    private final SparseArray<List<Entry>> entries = new SparseArray<>();
+
+    @Getter private volatile long replayCount = 0;
+    @Getter private volatile long recordCount = 0;
+
+    ScenePictureCache(int picturesPerWidget) {
+        this.picturesPerWidget = picturesPerWidget;
+    }
+
+    // Returns null if no picture of the widget was recorded for this scene
+    synchronized Picture get(int widgetId, long fingerprint) {
+        List<Entry> widgetEntries = entries.get(widgetId);
+        if (widgetEntries == null) {
+            return null;
+        }
+        for (int i = 0; i < widgetEntries.size(); i++) {
+            Entry entry = widgetEntries.get(i);
+            if (entry.fingerprint == fingerprint) {
+                widgetEntries.add(0, widgetEntries.remove(i));
+                replayCount++;
+                return entry.picture;
+            }
+        }
+        return null;
+    }
+
+    synchronized void put(int widgetId, long fingerprint, Picture picture) {
+        List<Entry> widgetEntries = entries.get(widgetId);
+        if (widgetEntries == null) {
+            widgetEntries = new ArrayList<>(picturesPerWidget);
+            entries.put(widgetId, widgetEntries);
+        }
+        for (int i = 0; i < widgetEntries.size(); i++) {
+            if (widgetEntries.get(i).fingerprint == fingerprint) {
+                widgetEntries.remove(i);
+                break;
+            }
+        }
+        if (widgetEntries.size() == picturesPerWidget) {
+            widgetEntries.remove(picturesPerWidget - 1);
+        }
+        widgetEntries.add(0, new Entry(fingerprint, picture));
+        recordCount++;
+    }
+
+    synchronized void remove(int[] widgetIds) {
+        for (int widgetId : widgetIds) {
+            entries.remove(widgetId);
+        }
+    }
+
+    synchronized int size(int widgetId) {
+        List<Entry> widgetEntries = entries.get(widgetId);
+        return widgetEntries == null ? 0 : widgetEntries.size();
+    }
+}
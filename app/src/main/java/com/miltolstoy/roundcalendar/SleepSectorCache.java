@@ -0,0 +1,107 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Path;
+import android.graphics.Point;
+import android.graphics.RectF;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Keeps ready sleep window sector paths per (widget geometry, sleep start, sleep end). Sleep window is drawn as two
+// sectors: before and after midnight. They are merged into one path, unless they overlap (sleep end is later than
+// sleep start), then overlapping part should be blended twice, as separate draws do.
+class SleepSectorCache {
+
+    private final Map<Key, Path[]> sectors;
+
+    SleepSectorCache(final int maxEntries) {
+        sectors = new LinkedHashMap<Key, Path[]>(maxEntries, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Path[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized Path[] get(ClockWidget clockWidget, TimeInfo sleepStart, TimeInfo sleepEnd) {
+        int startMinute = sleepStart.getHours() * 60 + sleepStart.getMinutes();
+        int endMinute = sleepEnd.getHours() * 60 + sleepEnd.getMinutes();
+        Key key = new Key(clockWidget, startMinute, endMinute);
+        Path[] paths = sectors.get(key);
+        if (paths == null) {
+            paths = createPaths(clockWidget, startMinute, endMinute);
+            sectors.put(key, paths);
+        }
+        return paths;
+    }
+
+    synchronized void clear() {
+        sectors.clear();
+    }
+
+    private static Path[] createPaths(ClockWidget clockWidget, int startMinute, int endMinute) {
+        Path beforeMidnight = new Path();
+        addSector(beforeMidnight, clockWidget, clockWidget.getEventDegrees(startMinute, 0));
+        if (endMinute > startMinute) {
+            Path afterMidnight = new Path();
+            addSector(afterMidnight, clockWidget, clockWidget.getEventDegrees(0, endMinute));
+            return new Path[] {beforeMidnight, afterMidnight};
+        }
+        addSector(beforeMidnight, clockWidget, clockWidget.getEventDegrees(0, endMinute));
+        return new Path[] {beforeMidnight};
+    }
+
+    // Same shape as Canvas.drawArc with useCenter
+    private static void addSector(Path path, ClockWidget clockWidget, ClockWidget.EventDegreeData degrees) {
+        Point center = clockWidget.getCenter();
+        RectF oval = clockWidget.getWidgetCircleObject();
+        path.moveTo(center.x, center.y);
+        path.arcTo(oval, degrees.getStart(), degrees.getSweep());
+        path.close();
+    }
+
+    private static class Key {
+        private final ClockWidget clockWidget;
+        private final int startMinute;
+        private final int endMinute;
+
+        Key(ClockWidget clockWidget, int startMinute, int endMinute) {
+            this.clockWidget = clockWidget;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return clockWidget == other.clockWidget && startMinute == other.startMinute
+                    && endMinute == other.endMinute;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(clockWidget) * 31 + startMinute) * 31 + endMinute;
+        }
+    }
+}
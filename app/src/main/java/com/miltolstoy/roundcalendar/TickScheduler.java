@@ -0,0 +1,133 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.text.format.DateUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+// Schedules the clock tick alarm at the nearest moment when some widget picture really changes, instead of a fixed
+// period. For every auto-updated widget the next change is the earliest of: the hand moving by one pixel (hand
+// position has minute precision, so this is aligned to minute boundaries and not earlier than widget update period),
+// the hand reaching an event or sleep time edge, and the midnight, when the displayed day is changed. Shifted widgets
+// have no hand, only midnight is tracked for them. One alarm is set for the earliest change among widgets.
+class TickScheduler {
+
+    private static final long minTickDelayMillis = DateUtils.SECOND_IN_MILLIS;
+
+    private static final Map<Integer, Long> nextChanges = new ConcurrentHashMap<>();
+    private static long scheduledTime = 0;
+
+    static void onWidgetRendered(Context context, int widgetId, long nextChangeTime) {
+        if (nextChangeTime == 0) {
+            nextChanges.remove(widgetId);
+        } else {
+            nextChanges.put(widgetId, nextChangeTime);
+        }
+        reschedule(context);
+    }
+
+    static void removeWidgets(Context context, int[] widgetIds) {
+        for (int widgetId : widgetIds) {
+            nextChanges.remove(widgetId);
+        }
+        reschedule(context);
+    }
+
+    // Alarm is fired, next one is set once widgets are redrawn
+    static synchronized void onTick() {
+        scheduledTime = 0;
+    }
+
+    private static synchronized void reschedule(Context context) {
+        long nextTick = 0;
+        for (long time : nextChanges.values()) {
+            if (nextTick == 0 || time < nextTick) {
+                nextTick = time;
+            }
+        }
+        if (nextTick == scheduledTime) {
+            return;
+        }
+
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        Intent tickIntent = new Intent(context, WidgetProvider.class);
+        tickIntent.setAction(WidgetProvider.tickAction);
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, 0, tickIntent, 0);
+        if (nextTick == 0) {
+            Logging.d("Widget auto-update is disabled");
+            alarmManager.cancel(pendingIntent);
+        } else {
+            if (Logging.DEBUG) {
+                Logging.d("Next clock tick in " + (nextTick - System.currentTimeMillis()) + " ms");
+            }
+            alarmManager.setExact(AlarmManager.RTC, nextTick, pendingIntent);
+        }
+        scheduledTime = nextTick;
+    }
+
+    // Returns 0 if widget is not updated automatically
+    static long computeNextChange(long now, long dayStart, long nextDayStart, float radius,
+                                  WidgetStateStore.WidgetState state, EventBuffer events) {
+        if (state.getUpdatePeriodMillis() <= 0) {
+            return 0;
+        }
+
+        long next = nextDayStart;
+        if (state.getDaysShift() == 0) {
+            next = Math.min(next, nextHandStep(now, radius, state.getUpdatePeriodMillis()));
+            next = nextEdge(next, now, dayStart, nextDayStart, toMinuteOfDay(state.getSleepStartTime()));
+            next = nextEdge(next, now, dayStart, nextDayStart, toMinuteOfDay(state.getSleepEndTime()));
+            for (int i = 0; i < events.getSize(); i++) {
+                if (events.isAllDay(i)) {
+                    continue;
+                }
+                next = nextEdge(next, now, dayStart, nextDayStart, events.getStartMinuteOfDay(i));
+                next = nextEdge(next, now, dayStart, nextDayStart, events.getFinishMinuteOfDay(i));
+            }
+        }
+        return Math.max(next, now + minTickDelayMillis);
+    }
+
+    // Time of the hand end moving by one pixel along the circumference: day / (2 * pi * R)
+    static long nextHandStep(long now, float radius, int updatePeriodMillis) {
+        long pixelStep = radius > 0 ? (long) (DateUtils.DAY_IN_MILLIS / (2 * Math.PI * radius)) : 0;
+        long step = Math.max(pixelStep, updatePeriodMillis);
+        long minutes = Math.max(1, (step + DateUtils.MINUTE_IN_MILLIS - 1) / DateUtils.MINUTE_IN_MILLIS);
+        return now - now % DateUtils.MINUTE_IN_MILLIS + minutes * DateUtils.MINUTE_IN_MILLIS;
+    }
+
+    private static long nextEdge(long next, long now, long dayStart, long nextDayStart, int minuteOfDay) {
+        long edge = dayStart + minuteOfDay * DateUtils.MINUTE_IN_MILLIS;
+        if (edge <= now) {
+            edge = nextDayStart + minuteOfDay * DateUtils.MINUTE_IN_MILLIS;
+        }
+        return Math.min(next, edge);
+    }
+
+    private static int toMinuteOfDay(TimeInfo time) {
+        return time.getHours() * 60 + time.getMinutes();
+    }
+}
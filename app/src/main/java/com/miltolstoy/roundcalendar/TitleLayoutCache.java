@@ -0,0 +1,125 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+
+
+// Keeps ellipsized event titles with their text bounds, keyed by (title, text size, max width). Recurring events
+// repeat the same titles every day, so they are measured only once.
+class TitleLayoutCache {
+
+    static final String ELLIPSIS = TitleEllipsizer.ELLIPSIS;
+
+    static class Layout {
+        @Getter private final String text;
+        @Getter private final int width;
+        @Getter private final int height;
+
+        private Layout(String text, int width, int height) {
+            this.text = text;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final Map<Key, Layout> layouts;
+    private final Rect bounds = new Rect();
+
+    @Getter private volatile long hitCount = 0;
+    @Getter private volatile long missCount = 0;
+
+    TitleLayoutCache(final int maxLayouts) {
+        layouts = new LinkedHashMap<Key, Layout>(maxLayouts, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Layout> eldest) {
+                return size() > maxLayouts;
+            }
+        };
+    }
+
+    synchronized Layout get(String title, Paint paint, float maxWidth) {
+        if (title == null) {
+            title = "";
+        }
+        Key key = new Key(title, paint.getTextSize(), maxWidth);
+        Layout layout = layouts.get(key);
+        if (layout != null) {
+            hitCount++;
+            return layout;
+        }
+        missCount++;
+
+        String text = ellipsize(title, paint, maxWidth);
+        paint.getTextBounds(text, 0, text.length(), bounds);
+        layout = new Layout(text, bounds.width(), bounds.height());
+        layouts.put(key, layout);
+        return layout;
+    }
+
+    synchronized void clear() {
+        layouts.clear();
+    }
+
+    static String ellipsize(String title, final Paint paint, float maxWidth) {
+        return TitleEllipsizer.ellipsize(title, new TitleEllipsizer.TextMeasurer() {
+            @Override
+            public float measureText(String text) {
+                return paint.measureText(text);
+            }
+
+            @Override
+            public int breakText(String text, float maxWidth) {
+                return paint.breakText(text, true, maxWidth, null);
+            }
+        }, maxWidth);
+    }
+
+    private static class Key {
+        private final String title;
+        private final float textSize;
+        private final float maxWidth;
+
+        Key(String title, float textSize, float maxWidth) {
+            this.title = title;
+            this.textSize = textSize;
+            this.maxWidth = maxWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return textSize == other.textSize && maxWidth == other.maxWidth && title.equals(other.title);
+        }
+
+        @Override
+        public int hashCode() {
+            return (title.hashCode() * 31 + Float.floatToIntBits(textSize)) * 31 + Float.floatToIntBits(maxWidth);
+        }
+    }
+}
@@ -25,13 +25,14 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Picture;
 import android.graphics.Point;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -48,11 +49,12 @@ import android.widget.TextView;
 import android.widget.TimePicker;
 import android.widget.Toast;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.List;
 import java.util.Set;
 
-import static com.miltolstoy.roundcalendar.Logging.TAG;
-
 public class WidgetConfigurationActivity extends AppCompatActivity {
 
     private final Object saveButtonLock = new Object();
@@ -64,12 +66,13 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
     private static final String eventColorSettingName = "useCalendarEventColor";
     private static final String calendarIdsSettingName = "calendarIds";
 
+    static final BitmapPool bitmapPool = new BitmapPool(BitmapPool.DEFAULT_BYTE_BUDGET);
+
     private SpinnerAdapter spinnerAdapter;
 
     private TextView sleepStartTimeTextView;
     private TextView sleepEndTimeTextView;
-    private static TimeInfo sleepStartTimeCached = new TimeInfo(21, 0);
-    private static TimeInfo sleepEndTimeCached = new TimeInfo(6, 0);
+    private int appWidgetId = AppWidgetManager.INVALID_APPWIDGET_ID;
 
     private CheckBox autoUpdateCheckBox;
     private EditText updatePeriodEditText;
@@ -81,8 +84,9 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
         setContentView(R.layout.activity_widget_configuration);
 
         requestCalendarPermissionsIfNeeded();
+        CalendarObserver.register(this);
 
-        final int appWidgetId = getAppWidgetId(getIntent());
+        appWidgetId = getAppWidgetId(getIntent());
         if (appWidgetId == AppWidgetManager.INVALID_APPWIDGET_ID) {
             sendResultAndExit(RESULT_CANCELED, appWidgetId);
         }
@@ -104,56 +108,134 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
         sleepEndTimeTextView = findViewById(R.id.sleep_end_time_text);
         setSleepTimeInfo(sleepEndTimeTextView, resources.getInteger(R.integer.sleep_end_hours),
                 resources.getInteger(R.integer.sleep_end_minutes));
-        storeSleepTime();
+        storeSettings(0);
 
         updatePeriodEditText = findViewById(R.id.update_period);
         autoUpdateCheckBox = findViewById(R.id.auto_update);
         autoUpdateCheckBox.setOnCheckedChangeListener(new AutoUpdateCheckBoxListener());
 
-        Point widgetSize = getWidgetSize(appWidgetManager, appWidgetId);
-        final int dayShift = 0;
-        drawWidget(this, views, widgetSize, dayShift);
+        Point widgetSize = getWidgetSize(this, appWidgetManager, appWidgetId);
+        WidgetProvider.setOnClickButtonsIntents(this, views, appWidgetId);
+        Bitmap bitmap = drawWidget(this, views, widgetSize, WidgetStateStore.getInstance(this).get(appWidgetId));
         appWidgetManager.updateAppWidget(appWidgetId, views);
+        WidgetRenderer.forgetSentScenes(new int[] {appWidgetId});
+        bitmapPool.release(bitmap);
 
         new WaitForOptionsSaveThread(appWidgetId).start();
     }
 
-    public static void drawWidget(Context context, RemoteViews views, Point widgetSize, int dayShift) {
-        SharedPreferences preferences = context.getSharedPreferences(preferencesName, Context.MODE_PRIVATE);
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showRenderMetrics();
+    }
 
-        Set<String> selectedCalendars = preferences.getStringSet(calendarIdsSettingName, null);
-        CalendarAdapter calendarAdapter = new CalendarAdapter(context, selectedCalendars, dayShift);
+    // Printed by "adb shell dumpsys activity top" while the screen is open
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        RenderMetrics.dump(writer);
+    }
 
-        boolean useCalendarEventColor = preferences.getBoolean(eventColorSettingName, Boolean.TRUE);
-        ClockView clockView = new ClockView(context, widgetSize, useCalendarEventColor, sleepStartTimeCached,
-                sleepEndTimeCached);
-        clockView.setCalendarAdapter(calendarAdapter);
+    // Debug builds only
+    private void showRenderMetrics() {
+        if (!Logging.DEBUG) {
+            return;
+        }
+        StringWriter text = new StringWriter();
+        RenderMetrics.dump(new PrintWriter(text));
+        TextView metricsTextView = findViewById(R.id.render_metrics);
+        metricsTextView.setText(text.toString());
+        metricsTextView.setVisibility(View.VISIBLE);
+    }
+
+    // Returned bitmap is owned by the pool: release it once views are sent with updateAppWidget
+    public static Bitmap drawWidget(Context context, RemoteViews views, Point widgetSize,
+                                    WidgetStateStore.WidgetState state) {
+        return drawWidget(views, widgetSize, recordWidget(context, widgetSize, state,
+                createCalendarAdapter(context, state.getDaysShift())));
+    }
 
-        Bitmap bitmap = Bitmap.createBitmap(widgetSize.x, widgetSize.y, Bitmap.Config.ARGB_8888);
-        clockView.draw(new Canvas(bitmap));
+    // Replays recorded widget picture into a pooled bitmap, no drawing logic is run
+    static Bitmap drawWidget(RemoteViews views, Point widgetSize, Picture picture) {
+        long rasterStart = RenderMetrics.start();
+        Bitmap bitmap = bitmapPool.acquire(widgetSize.x, widgetSize.y, Bitmap.Config.ARGB_8888);
+        new Canvas(bitmap).drawPicture(picture);
+        RenderMetrics.record(RenderMetrics.Phase.RASTER, rasterStart);
         views.setImageViewBitmap(R.id.widgetClockView, bitmap);
+        if (Logging.DEBUG) {
+            Logging.d("Bitmap pool hits: " + bitmapPool.getHitCount() + ", misses: " + bitmapPool.getMissCount());
+        }
+        return bitmap;
+    }
+
+    static Picture recordWidget(Context context, Point widgetSize, WidgetStateStore.WidgetState state,
+                                CalendarAdapter calendarAdapter) {
+        boolean useCalendarEventColor = isCalendarEventColorUsed(context);
+        ClockView clockView = new ClockView(context, widgetSize, useCalendarEventColor, state.getSleepStartTime(),
+                state.getSleepEndTime());
+        clockView.setCalendarAdapter(calendarAdapter);
+        long layoutStart = RenderMetrics.start();
+        Picture picture = clockView.record();
+        RenderMetrics.record(RenderMetrics.Phase.LAYOUT, layoutStart);
+        return picture;
     }
 
-    public static Point getWidgetSize(AppWidgetManager appWidgetManager, int appWidgetId) {
-        AppWidgetProviderInfo widgetInfo = appWidgetManager.getAppWidgetInfo(appWidgetId);
-        Log.d(TAG, "Widget height: " + widgetInfo.minHeight + ", width: " + widgetInfo.minWidth);
-        return new Point(widgetInfo.minWidth, widgetInfo.minHeight);
+    static boolean isCalendarEventColorUsed(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(preferencesName, Context.MODE_PRIVATE);
+        return preferences.getBoolean(eventColorSettingName, Boolean.TRUE);
+    }
+
+    static CalendarAdapter createCalendarAdapter(Context context, int dayShift) {
+        SharedPreferences preferences = context.getSharedPreferences(preferencesName, Context.MODE_PRIVATE);
+        Set<String> selectedCalendars = preferences.getStringSet(calendarIdsSettingName, null);
+        return new CalendarAdapter(context, selectedCalendars, dayShift);
+    }
+
+    // Widget options hold the displayed size range in dp: in portrait the widget takes min width and max height, in
+    // landscape - max width and min height. Until the host reports options, provider info min size is used: unlike
+    // options, it is already converted to px by AppWidgetManager.getAppWidgetInfo.
+    public static Point getWidgetSize(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+        Bundle options = appWidgetManager.getAppWidgetOptions(appWidgetId);
+        boolean portrait = context.getResources().getConfiguration().orientation
+                != Configuration.ORIENTATION_LANDSCAPE;
+        int widthDp = options.getInt(portrait ? AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH
+                : AppWidgetManager.OPTION_APPWIDGET_MAX_WIDTH);
+        int heightDp = options.getInt(portrait ? AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT
+                : AppWidgetManager.OPTION_APPWIDGET_MIN_HEIGHT);
+        if (widthDp <= 0 || heightDp <= 0) {
+            AppWidgetProviderInfo widgetInfo = appWidgetManager.getAppWidgetInfo(appWidgetId);
+            if (Logging.DEBUG) {
+                Logging.d("No size in widget options, height: " + widgetInfo.minHeight + ", width: "
+                        + widgetInfo.minWidth + " px");
+            }
+            return new Point(widgetInfo.minWidth, widgetInfo.minHeight);
+        }
+
+        float density = context.getResources().getDisplayMetrics().density;
+        Point size = new Point(Math.round(widthDp * density), Math.round(heightDp * density));
+        if (Logging.DEBUG) {
+            Logging.d("Widget height: " + size.y + ", width: " + size.x + " px");
+        }
+        return size;
     }
 
     public void onSaveClicked(View view) {
         RadioButton calendarEventColorButton = findViewById(R.id.calendar_color_radio);
         boolean useCalendarEventColor = calendarEventColorButton.isChecked();
-        Log.d(TAG, "Using " + (useCalendarEventColor ? "calendar" : "default") + " event color");
+        if (Logging.DEBUG) {
+            Logging.d("Using " + (useCalendarEventColor ? "calendar" : "default") + " event color");
+        }
 
         Set<String> selectedIds = spinnerAdapter.getSelectedCalendarIds();
         if (selectedIds.isEmpty()) {
-            Log.e(TAG, "No selected calendars");
+            Logging.e("No selected calendars");
             Toast.makeText(this, "Please select at least one calendar to display", Toast.LENGTH_LONG).show();
             return;
         }
-        Log.d(TAG, "Selected calendars:");
+        Logging.d("Selected calendars:");
         for (String id : selectedIds) {
-            Log.d(TAG, id);
+            Logging.d(id);
         }
 
         int updatePeriod = 0;
@@ -161,14 +243,15 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
             EditText updatePeriodEditText = findViewById(R.id.update_period);
             String updatePeriodString = updatePeriodEditText.getText().toString();
             if (updatePeriodString.isEmpty()) {
-                Log.e(TAG, "Widget update period not specified");
+                Logging.e("Widget update period not specified");
                 Toast.makeText(this, "Please specify widget update period", Toast.LENGTH_LONG).show();
                 return;
             }
             updatePeriod = Integer.parseInt(updatePeriodString);
         }
-        Log.d(TAG, "Widget update period: " + updatePeriod);
-        WidgetProvider.setUpdatePeriod(updatePeriod);
+        if (Logging.DEBUG) {
+            Logging.d("Widget update period: " + updatePeriod);
+        }
 
         SharedPreferences preferences = view.getContext().getSharedPreferences(preferencesName, Context.MODE_PRIVATE);
         SharedPreferences.Editor editor = preferences.edit();
@@ -176,7 +259,9 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
         editor.putStringSet(calendarIdsSettingName, selectedIds);
         editor.apply();
 
-        storeSleepTime();
+        storeSettings(updatePeriod);
+        // Redraw with saved settings, this also sets up the clock tick for the widget
+        WidgetRenderer.render(this, new int[] {appWidgetId}, RenderQueue.Priority.NAVIGATION, null);
 
         synchronized (saveButtonLock) {
             saveButtonLock.notify();
@@ -219,20 +304,20 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
     }
 
     void requestCalendarPermissionsIfNeeded() {
-        Log.d(TAG, "Checking READ_CALENDAR permission");
+        Logging.d("Checking READ_CALENDAR permission");
         if (checkSelfPermission(Manifest.permission.READ_CALENDAR) == PackageManager.PERMISSION_GRANTED)
         {
-            Log.d(TAG, "READ_CALENDAR permission granted");
+            Logging.d("READ_CALENDAR permission granted");
             return;
         }
 
-        Log.d(TAG, "Requesting READ_CALENDAR permission");
+        Logging.d("Requesting READ_CALENDAR permission");
         requestPermissions(new String[]{Manifest.permission.READ_CALENDAR}, CALENDAR_PERMISSION_CODE);
-        Log.e(TAG, "Calendar permission not granted");
+        Logging.e("Calendar permission not granted");
         try {
             Thread.sleep(1000);
         } catch (InterruptedException e) {
-            Log.e(TAG, e.getMessage());
+            Logging.e(e.getMessage());
         }
         System.exit(0);
     }
@@ -240,7 +325,7 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
     private int getAppWidgetId(Intent intent) {
         Bundle extras = intent.getExtras();
         if (extras == null) {
-            Log.e(TAG, "Empty extras");
+            Logging.e("Empty extras");
             return AppWidgetManager.INVALID_APPWIDGET_ID;
         }
         return extras.getInt(AppWidgetManager.EXTRA_APPWIDGET_ID, AppWidgetManager.INVALID_APPWIDGET_ID);
@@ -276,7 +361,7 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
                 }
                 sendResultAndExit(RESULT_OK, AppWidgetManager.ACTION_APPWIDGET_OPTIONS_CHANGED, appWidgetId);
             } catch (InterruptedException e) {
-                Log.e(TAG, e.getMessage());
+                Logging.e(e.getMessage());
                 sendResultAndExit(RESULT_CANCELED, appWidgetId);
             }
         }
@@ -297,13 +382,13 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
 
     private static TimeInfo getSleepTimeInfo(TextView textView) {
         if (textView == null) {
-            Log.e(TAG, "Text view is not initialized");
+            Logging.e("Text view is not initialized");
             return null;
         }
         String text = (String) textView.getText();
         String[] parsed = text.split(":");
         if (parsed.length != 2) {
-            Log.e(TAG, "Invalid time info: " + text);
+            Logging.e("Invalid time info: " + text);
             return null;
         }
         return new TimeInfo(Integer.valueOf(parsed[0].trim()), Integer.valueOf(parsed[1].trim()));
@@ -316,14 +401,18 @@ public class WidgetConfigurationActivity extends AppCompatActivity {
         }
     }
 
-    private void storeSleepTime() {
+    private void storeSettings(final int updatePeriod) {
         TimeInfo sleepStartInfo = getSleepTimeInfo(sleepStartTimeTextView);
-        if (sleepStartInfo != null) {
-            sleepStartTimeCached = sleepStartInfo;
-        }
         TimeInfo sleepEndInfo = getSleepTimeInfo(sleepEndTimeTextView);
-        if (sleepEndInfo != null) {
-            sleepEndTimeCached = sleepEndInfo;
-        }
+        final TimeInfo sleepStart = sleepStartInfo != null ? sleepStartInfo
+                : WidgetStateStore.WidgetState.DEFAULT.getSleepStartTime();
+        final TimeInfo sleepEnd = sleepEndInfo != null ? sleepEndInfo
+                : WidgetStateStore.WidgetState.DEFAULT.getSleepEndTime();
+        WidgetStateStore.getInstance(this).update(appWidgetId, new WidgetStateStore.Mutation() {
+            @Override
+            public WidgetStateStore.WidgetState apply(WidgetStateStore.WidgetState state) {
+                return state.withSettings(updatePeriod, sleepStart, sleepEnd);
+            }
+        });
     }
 }
@@ -18,20 +18,16 @@ along with this program.  If not, see <http://www.gnu.org/licenses/>.
 
 package com.miltolstoy.roundcalendar;
 
-import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.graphics.Point;
-import android.util.Log;
+import android.os.AsyncTask;
 import android.widget.RemoteViews;
 
-import java.util.Calendar;
-
-import static com.miltolstoy.roundcalendar.Logging.TAG;
+import java.util.Arrays;
 
 
 public class WidgetProvider extends AppWidgetProvider {
@@ -39,34 +35,58 @@ public class WidgetProvider extends AppWidgetProvider {
     private static final String previousDayAction = "previousDayAction";
     private static final String nextDayAction = "nextDayAction";
     private static final String todayAction = "todayAction";
-    private static final String tickAction = "com.miltolstoy.roundcalendar.clockTickAction";
+    static final String tickAction = "com.miltolstoy.roundcalendar.clockTickAction";
+    private static final String renderPriorityExtra = "com.miltolstoy.roundcalendar.renderPriority";
 
-    // If widget update will be too frequent, Android will block it at all. If widget update period will be large, it
-    // will affect user experience. Recommended value >= 1 minute.
-    private static int updatePeriodMillis = 0;
-    private static final Object updatePeriodLock = new Object();
+    // Provider instance is created per broadcast, priority is taken from the update intent before onUpdate call
+    private RenderQueue.Priority updatePriority = RenderQueue.Priority.TICK;
 
-    private static int daysShift = 0;
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        WidgetStateStore.getInstance(context).remove(appWidgetIds);
+        TickScheduler.removeWidgets(context, appWidgetIds);
+        WidgetRenderer.forgetWidgets(appWidgetIds);
+    }
 
     @Override
-    public void onEnabled(Context context) {
-        setupNextClockTick(context);
+    public void onDisabled(Context context) {
+        CalendarObserver.unregister();
     }
 
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
         if (action == null) {
-            Log.d(TAG, "Empty action");
+            Logging.d("Empty action");
+            return;
+        }
+        CalendarObserver.register(context);
+
+        if (action.equals(AppWidgetManager.ACTION_APPWIDGET_UPDATE)) {
+            String priority = intent.getStringExtra(renderPriorityExtra);
+            if (priority != null) {
+                updatePriority = RenderQueue.Priority.valueOf(priority);
+            }
+        }
+
+        if (action.equals(Intent.ACTION_TIMEZONE_CHANGED) || action.equals(Intent.ACTION_TIME_CHANGED)) {
+            DayWindowService.invalidate();
+            CalendarAdapter.markEventsDirty();
+            TickScheduler.onTick();
+            int[] ids = AppWidgetManager.getInstance(context).getAppWidgetIds(
+                    new ComponentName(context, WidgetProvider.class));
+            WidgetRenderer.render(context, ids, RenderQueue.Priority.TICK, goAsync());
             return;
         }
 
         if (action.equals(tickAction)) {
-            setupNextClockTick(context);
+            RenderMetrics.increment(RenderMetrics.Counter.ALARM_TICKS);
+            TickScheduler.onTick();
             Intent updateIntent = new Intent(context, WidgetProvider.class);
             updateIntent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
             int[] ids = AppWidgetManager.getInstance(context).getAppWidgetIds(new ComponentName(context, WidgetProvider.class));
             updateIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, ids);
+            updateIntent.putExtra(renderPriorityExtra, RenderQueue.Priority.TICK.name());
             context.sendBroadcast(updateIntent);
             super.onReceive(context, intent);
             return;
@@ -74,43 +94,70 @@ public class WidgetProvider extends AppWidgetProvider {
 
         if (!action.equals(previousDayAction) && !action.equals(nextDayAction) && !action.equals(todayAction)
                 && !action.equals(AppWidgetManager.ACTION_APPWIDGET_OPTIONS_CHANGED)) {
-            Log.d(TAG, "Unhandled action: " + action);
+            if (Logging.DEBUG) {
+                Logging.d("Unhandled action: " + action);
+            }
             super.onReceive(context, intent);
             return;
         }
 
+        final int step;
         if (action.equals(previousDayAction)) {
-            daysShift -= 1;
+            step = -1;
         } else if (action.equals(nextDayAction)) {
-            daysShift += 1;
+            step = 1;
         } else {
-            daysShift = 0;
+            step = 0;
         }
 
         int widgetId = intent.getIntExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, 0);
-        drawAndUpdate(context, widgetId);
+        WidgetStateStore.getInstance(context).update(widgetId, new WidgetStateStore.Mutation() {
+            @Override
+            public WidgetStateStore.WidgetState apply(WidgetStateStore.WidgetState state) {
+                return state.withDaysShift(step == 0 ? 0 : state.getDaysShift() + step);
+            }
+        });
+        WidgetRenderer.render(context, new int[] {widgetId}, RenderQueue.Priority.NAVIGATION, goAsync());
 
         super.onReceive(context, intent);
     }
 
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int id : appWidgetIds) {
-            drawAndUpdate(context, id);
-            setOnClickButtonsIntents(context, id);
-        }
+        WidgetRenderer.render(context, appWidgetIds, updatePriority, goAsync());
     }
 
-    public static void setUpdatePeriod(int value) {
-        synchronized (updatePeriodLock) {
-            updatePeriodMillis = value;
-        }
-    }
-
-    private int getUpdatePeriod() {
-        synchronized (updatePeriodLock) {
-            return updatePeriodMillis;
+    // Redraws widgets only if their displayed day events were really changed
+    static void onCalendarChanged(final Context context) {
+        final int[] ids = AppWidgetManager.getInstance(context).getAppWidgetIds(
+                new ComponentName(context, WidgetProvider.class));
+        if (ids.length == 0) {
+            return;
         }
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                WidgetStateStore stateStore = WidgetStateStore.getInstance(context);
+                int[] changedIds = new int[ids.length];
+                int changedCount = 0;
+                for (int id : ids) {
+                    CalendarAdapter calendarAdapter = WidgetConfigurationActivity.createCalendarAdapter(context,
+                            stateStore.get(id).getDaysShift());
+                    if (calendarAdapter.refreshTodayEvents()) {
+                        changedIds[changedCount++] = id;
+                    }
+                }
+                if (changedCount == 0) {
+                    Logging.d("Calendar change does not affect displayed days");
+                    return;
+                }
+                Intent updateIntent = new Intent(context, WidgetProvider.class);
+                updateIntent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
+                updateIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, Arrays.copyOf(changedIds, changedCount));
+                updateIntent.putExtra(renderPriorityExtra, RenderQueue.Priority.CONTENT_CHANGE.name());
+                context.sendBroadcast(updateIntent);
+            }
+        });
     }
 
     private static void setOnClickIntent(Context context, RemoteViews views, int widgetId, int viewId,
@@ -122,35 +169,9 @@ public class WidgetProvider extends AppWidgetProvider {
         views.setOnClickPendingIntent(viewId, pendingIntent);
     }
 
-    private static void drawAndUpdate(Context context, int widgetId) {
-        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget);
-        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-        Point widgetSize = WidgetConfigurationActivity.getWidgetSize(appWidgetManager, widgetId);
-        WidgetConfigurationActivity.drawWidget(context, views, widgetSize, daysShift);
-        appWidgetManager.updateAppWidget(widgetId, views);
-    }
-
-    private static void setOnClickButtonsIntents(Context context, int widgetId) {
-        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget);
+    static void setOnClickButtonsIntents(Context context, RemoteViews views, int widgetId) {
         setOnClickIntent(context, views, widgetId, R.id.previous_button, previousDayAction);
         setOnClickIntent(context, views, widgetId, R.id.next_button, nextDayAction);
         setOnClickIntent(context, views, widgetId, R.id.today_button, todayAction);
-        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-        appWidgetManager.updateAppWidget(widgetId, views);
-    }
-
-    private void setupNextClockTick(Context context) {
-        final int updatePeriod = getUpdatePeriod();
-        if (updatePeriod == 0) {
-            Log.d(TAG, "Widget auto-update is disabled");
-            return;
-        }
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.MILLISECOND, updatePeriod);
-        Intent tickIntent = new Intent(context, WidgetProvider.class);
-        tickIntent.setAction(tickAction);
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, 0, tickIntent, 0);
-        alarmManager.setExact(AlarmManager.RTC, calendar.getTimeInMillis(), pendingIntent);
     }
 }
@@ -0,0 +1,203 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.appwidget.AppWidgetManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Picture;
+import android.graphics.Point;
+import android.widget.RemoteViews;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+
+// Draws widgets on a dedicated render thread, so calendar query, drawing and updateAppWidget call do not block the
+// broadcast (main) thread. Requests go through RenderQueue: a burst of requests for one widget is drawn once, with
+// its newest state from WidgetStateStore, and user navigation goes before periodic and content change updates.
+// Render is dropped if a newer one for the same widget was requested while it was drawn, and skipped at all if its
+// scene fingerprint equals the last sent one. Scenes are recorded into pictures, a recently drawn scene is replayed
+// from its picture without running the drawing logic again. Pending broadcast result is finished when all renders
+// requested by the broadcast are done.
+class WidgetRenderer {
+
+    private static final ExecutorService renderExecutor = Executors.newSingleThreadExecutor();
+    @Getter private static final RenderQueue renderQueue = new RenderQueue();
+    // Fingerprints of the last scenes sent with updateAppWidget
+    private static final Map<Integer, Long> sceneFingerprints = new ConcurrentHashMap<>();
+    @Getter private static final ScenePictureCache scenePictures = new ScenePictureCache(4);
+
+    static void render(Context context, int[] widgetIds, RenderQueue.Priority priority,
+                       final BroadcastReceiver.PendingResult pendingResult) {
+        if (widgetIds.length == 0) {
+            finish(pendingResult);
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        final AtomicInteger remainingRenders = new AtomicInteger(widgetIds.length);
+        Runnable completion = new Runnable() {
+            @Override
+            public void run() {
+                if (remainingRenders.decrementAndGet() == 0) {
+                    finish(pendingResult);
+                }
+            }
+        };
+        for (int widgetId : widgetIds) {
+            if (renderQueue.offer(widgetId, priority, completion)) {
+                if (Logging.DEBUG) {
+                    Logging.d("Render request collapsed, widget " + widgetId);
+                }
+                continue;
+            }
+            renderExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    renderNext(appContext);
+                }
+            });
+        }
+    }
+
+    private static void renderNext(Context context) {
+        RenderQueue.Request request = renderQueue.poll();
+        if (request == null) {
+            return;
+        }
+        try {
+            drawAndUpdate(context, request);
+        } catch (RuntimeException e) {
+            RenderMetrics.increment(RenderMetrics.Counter.FAILED_RENDERS);
+            Logging.e("Widget " + request.getWidgetId() + " render failed: " + e);
+        } finally {
+            request.complete();
+        }
+    }
+
+    private static void drawAndUpdate(Context context, RenderQueue.Request request) {
+        int widgetId = request.getWidgetId();
+        RenderMetrics.increment(RenderMetrics.Counter.RENDERS);
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        Point widgetSize = WidgetConfigurationActivity.getWidgetSize(context, appWidgetManager, widgetId);
+        WidgetStateStore.WidgetState state = WidgetStateStore.getInstance(context).get(widgetId);
+        scheduleNextTick(context, widgetId, widgetSize, state);
+
+        // Fingerprint and picture come from one snapshot of the displayed day events
+        CalendarAdapter calendarAdapter = WidgetConfigurationActivity.createCalendarAdapter(context,
+                state.getDaysShift()).pinDay();
+        long fingerprint = computeFingerprint(context, widgetSize, state, calendarAdapter);
+        Long lastFingerprint = sceneFingerprints.get(widgetId);
+        if (lastFingerprint != null && lastFingerprint == fingerprint) {
+            RenderMetrics.increment(RenderMetrics.Counter.SKIPPED_RENDERS);
+            if (Logging.DEBUG) {
+                Logging.d("Scene is not changed, render skipped, widget " + widgetId);
+            }
+            return;
+        }
+
+        // Checked before the costly drawing and again before sending, a newer request may come in between
+        if (isStale(request)) {
+            return;
+        }
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget);
+        WidgetProvider.setOnClickButtonsIntents(context, views, widgetId);
+        Picture picture = scenePictures.get(widgetId, fingerprint);
+        if (picture == null) {
+            picture = WidgetConfigurationActivity.recordWidget(context, widgetSize, state, calendarAdapter);
+            scenePictures.put(widgetId, fingerprint, picture);
+        } else {
+            if (Logging.DEBUG) {
+                Logging.d("Recorded scene replayed, widget " + widgetId);
+            }
+        }
+        Bitmap bitmap = WidgetConfigurationActivity.drawWidget(views, widgetSize, picture);
+        try {
+            if (isStale(request)) {
+                return;
+            }
+            long updateStart = RenderMetrics.start();
+            appWidgetManager.updateAppWidget(widgetId, views);
+            RenderMetrics.record(RenderMetrics.Phase.UPDATE, updateStart);
+            sceneFingerprints.put(widgetId, fingerprint);
+        } finally {
+            WidgetConfigurationActivity.bitmapPool.release(bitmap);
+        }
+    }
+
+    private static boolean isStale(RenderQueue.Request request) {
+        if (renderQueue.isCurrent(request)) {
+            return false;
+        }
+        RenderMetrics.increment(RenderMetrics.Counter.STALE_RENDERS);
+        if (Logging.DEBUG) {
+            Logging.d("Stale render dropped, widget " + request.getWidgetId());
+        }
+        return true;
+    }
+
+    static void forgetWidgets(int[] widgetIds) {
+        forgetSentScenes(widgetIds);
+        scenePictures.remove(widgetIds);
+    }
+
+    // Views were updated outside of the renderer, so the next render must not be skipped as unchanged
+    static void forgetSentScenes(int[] widgetIds) {
+        for (int widgetId : widgetIds) {
+            sceneFingerprints.remove(widgetId);
+        }
+    }
+
+    private static long computeFingerprint(Context context, Point widgetSize, WidgetStateStore.WidgetState state,
+                                           CalendarAdapter calendarAdapter) {
+        Point handEnd = null;
+        if (!calendarAdapter.isCalendarShifted()) {
+            handEnd = ClockWidget.obtain(widgetSize).getCurrentTimeHandCoordinates().get(1);
+        }
+        return SceneFingerprint.of(widgetSize, calendarAdapter.getDayStart(), handEnd,
+                calendarAdapter.getTodayEventBuffer(), WidgetConfigurationActivity.isCalendarEventColorUsed(context),
+                state);
+    }
+
+    // Scheduled before drawing, so a failed render does not stop the clock
+    private static void scheduleNextTick(Context context, int widgetId, Point widgetSize,
+                                         WidgetStateStore.WidgetState state) {
+        long nextChange = 0;
+        if (state.getUpdatePeriodMillis() > 0) {
+            CalendarAdapter calendarAdapter = WidgetConfigurationActivity.createCalendarAdapter(context, 0);
+            EventBuffer events = state.getDaysShift() == 0 ? calendarAdapter.getTodayEventBuffer() : new EventBuffer();
+            nextChange = TickScheduler.computeNextChange(System.currentTimeMillis(), calendarAdapter.getDayStart(0),
+                    calendarAdapter.getDayStart(1), ClockWidget.obtain(widgetSize).getRadius(), state, events);
+        }
+        TickScheduler.onWidgetRendered(context, widgetId, nextChange);
+    }
+
+    private static void finish(BroadcastReceiver.PendingResult pendingResult) {
+        if (pendingResult != null) {
+            pendingResult.finish();
+        }
+    }
+}
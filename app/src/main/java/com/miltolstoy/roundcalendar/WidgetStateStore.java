@@ -0,0 +1,174 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Getter;
+
+
+// Per-widget state, keyed by app widget id. States are immutable and published through atomic references, so render
+// threads read them without locking; updates are compare-and-set loops. Every state is persisted as one short
+// preferences string, so it survives process death. Preferences are written under a lock with the newest state, so
+// the last write is never an older state than the last compare-and-set, and a removed widget is not written back.
+class WidgetStateStore {
+
+    static class WidgetState {
+        static final WidgetState DEFAULT = new WidgetState(0, 0, new TimeInfo(21, 0), new TimeInfo(6, 0));
+
+        @Getter private final int daysShift;
+        @Getter private final int updatePeriodMillis;
+        @Getter private final TimeInfo sleepStartTime;
+        @Getter private final TimeInfo sleepEndTime;
+
+        WidgetState(int daysShift, int updatePeriodMillis, TimeInfo sleepStartTime, TimeInfo sleepEndTime) {
+            this.daysShift = daysShift;
+            this.updatePeriodMillis = updatePeriodMillis;
+            this.sleepStartTime = sleepStartTime;
+            this.sleepEndTime = sleepEndTime;
+        }
+
+        WidgetState withDaysShift(int value) {
+            return new WidgetState(value, updatePeriodMillis, sleepStartTime, sleepEndTime);
+        }
+
+        WidgetState withSettings(int updatePeriod, TimeInfo sleepStart, TimeInfo sleepEnd) {
+            return new WidgetState(daysShift, updatePeriod, sleepStart, sleepEnd);
+        }
+
+        // Format: "daysShift,updatePeriodMillis,sleepStartMinuteOfDay,sleepEndMinuteOfDay"
+        String encode() {
+            return daysShift + "," + updatePeriodMillis + "," + toMinuteOfDay(sleepStartTime) + ","
+                    + toMinuteOfDay(sleepEndTime);
+        }
+
+        static WidgetState decode(String value) {
+            String[] parts = value.split(",");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed widget state: " + value);
+            }
+            return new WidgetState(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                    fromMinuteOfDay(Integer.parseInt(parts[2])), fromMinuteOfDay(Integer.parseInt(parts[3])));
+        }
+
+        private static int toMinuteOfDay(TimeInfo time) {
+            return time.getHours() * 60 + time.getMinutes();
+        }
+
+        private static TimeInfo fromMinuteOfDay(int minute) {
+            return new TimeInfo(minute / 60, minute % 60);
+        }
+    }
+
+    interface Mutation {
+        WidgetState apply(WidgetState state);
+    }
+
+    private static final String preferencesName = "RoundCalendarWidgetStates";
+    private static volatile WidgetStateStore instance = null;
+
+    private final ConcurrentHashMap<Integer, AtomicReference<WidgetState>> states = new ConcurrentHashMap<>();
+    private final SharedPreferences preferences;
+    private final Object preferencesLock = new Object();
+
+    static WidgetStateStore getInstance(Context context) {
+        WidgetStateStore store = instance;
+        if (store == null) {
+            synchronized (WidgetStateStore.class) {
+                store = instance;
+                if (store == null) {
+                    store = new WidgetStateStore(context.getApplicationContext()
+                            .getSharedPreferences(preferencesName, Context.MODE_PRIVATE));
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    WidgetStateStore(SharedPreferences preferences) {
+        this.preferences = preferences;
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            try {
+                states.put(Integer.parseInt(entry.getKey()),
+                        new AtomicReference<>(WidgetState.decode(String.valueOf(entry.getValue()))));
+            } catch (IllegalArgumentException e) {
+                Logging.w("Dropping widget state " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    WidgetState get(int widgetId) {
+        AtomicReference<WidgetState> reference = states.get(widgetId);
+        return reference == null ? WidgetState.DEFAULT : reference.get();
+    }
+
+    WidgetState update(int widgetId, Mutation mutation) {
+        AtomicReference<WidgetState> reference = states.get(widgetId);
+        if (reference == null) {
+            AtomicReference<WidgetState> created = new AtomicReference<>(WidgetState.DEFAULT);
+            reference = states.putIfAbsent(widgetId, created);
+            if (reference == null) {
+                reference = created;
+            }
+        }
+
+        WidgetState current;
+        WidgetState updated;
+        do {
+            current = reference.get();
+            updated = mutation.apply(current);
+        } while (!reference.compareAndSet(current, updated));
+
+        synchronized (preferencesLock) {
+            if (states.get(widgetId) == reference) {
+                preferences.edit().putString(String.valueOf(widgetId), reference.get().encode()).apply();
+            }
+        }
+        return updated;
+    }
+
+    void remove(int[] widgetIds) {
+        synchronized (preferencesLock) {
+            SharedPreferences.Editor editor = preferences.edit();
+            for (int widgetId : widgetIds) {
+                states.remove(widgetId);
+                editor.remove(String.valueOf(widgetId));
+            }
+            editor.apply();
+        }
+    }
+
+    // Shortest enabled update period among widgets, 0 if auto-update is disabled for all of them
+    int getMinUpdatePeriod() {
+        int period = 0;
+        for (AtomicReference<WidgetState> reference : states.values()) {
+            int widgetPeriod = reference.get().getUpdatePeriodMillis();
+            if (widgetPeriod > 0 && (period == 0 || widgetPeriod < period)) {
+                period = widgetPeriod;
+            }
+        }
+        return period;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Local minutes of event bounds, as computed when events are read. Cold variant starts every invocation with
+// invalidated days, as after time zone change.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DayWindowBenchmark {
+
+    @Benchmark
+    public void eventMinutes(DayState state, Blackhole blackhole) {
+        computeMinutes(state.day, blackhole);
+    }
+
+    @Benchmark
+    public void eventMinutesCold(DayState state, Blackhole blackhole) {
+        DayWindowService.invalidate();
+        computeMinutes(state.day, blackhole);
+    }
+
+    private static void computeMinutes(SyntheticDay day, Blackhole blackhole) {
+        for (int i = 0; i < day.getSize(); i++) {
+            blackhole.consume(DayWindowService.toMinuteOfDay(day.getBegin(i)));
+            blackhole.consume(DayWindowService.toMinuteOfDay(day.getEnd(i)));
+        }
+    }
+}
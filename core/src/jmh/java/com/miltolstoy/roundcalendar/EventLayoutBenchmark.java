@@ -0,0 +1,61 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Per-render event layout: same time grouping and sector angles of every event
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventLayoutBenchmark {
+
+    @Benchmark
+    public List<int[]> sameTimeGrouping(DayState state) {
+        SyntheticDay day = state.day;
+        return SameTimeEvents.find(day, new boolean[day.getSize()]);
+    }
+
+    @Benchmark
+    public void eventDegrees(DayState state, Blackhole blackhole) {
+        SyntheticDay day = state.day;
+        for (int i = 0; i < day.getSize(); i++) {
+            float start = DialAngles.minuteOfDayToDegree(day.getStartMinuteOfDay(i));
+            float end = DialAngles.minuteOfDayToDegree(day.getFinishMinuteOfDay(i));
+            blackhole.consume(start);
+            blackhole.consume(DialAngles.eventSweep(start, end));
+        }
+    }
+
+    @Benchmark
+    public void separatorPoints(DayState state, Blackhole blackhole) {
+        SyntheticDay day = state.day;
+        for (int i = 0; i < day.getSize(); i++) {
+            float degree = DialAngles.minuteOfDayToHandDegree(day.getStartMinuteOfDay(i));
+            blackhole.consume(DialAngles.concentricDx(degree, 400));
+            blackhole.consume(DialAngles.concentricDy(degree, 400));
+        }
+    }
+}
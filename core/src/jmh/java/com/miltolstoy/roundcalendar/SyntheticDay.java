@@ -0,0 +1,121 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+// Generated day of calendar events, similar to what a busy calendar gives: events start at quarter hours during the
+// working day, mostly last 30-60 minutes, some are all-day ones and some share their time with others. Same seed
+// gives same day, so benchmark runs are comparable.
+class SyntheticDay implements EventTimes {
+
+    private static final String[] words = {"Team", "sync", "Design", "review", "Lunch", "with", "Anna", "Call",
+            "Project", "planning", "Dentist", "1:1", "Standup", "Release", "retro", "Gym", "Pick", "up", "kids",
+            "Interview", "candidate", "Quarterly", "business", "update", "Flight", "to", "Berlin"};
+    private static final int[] durationMinutes = {15, 30, 30, 45, 60, 60, 60, 90, 120, 180};
+    private static final String[] commonDurations = {"PT1H", "PT30M", "P1D", "PT3600S", "PT15M", "P1W", "PT1H30M"};
+    private static final int allDayPercent = 5;
+
+    private final int size;
+    private final int[] startMinutes;
+    private final int[] finishMinutes;
+    private final boolean[] allDays;
+    private final String[] titles;
+    private final String[] durations;
+    private final long[] begins;
+    private final long[] ends;
+
+    SyntheticDay(int eventCount, long seed) {
+        size = eventCount;
+        startMinutes = new int[eventCount];
+        finishMinutes = new int[eventCount];
+        allDays = new boolean[eventCount];
+        titles = new String[eventCount];
+        durations = new String[eventCount];
+        begins = new long[eventCount];
+        ends = new long[eventCount];
+
+        Calendar calendar = Calendar.getInstance(TimeZone.getDefault());
+        calendar.set(2020, Calendar.MARCH, 10, 0, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        long dayStart = calendar.getTimeInMillis();
+
+        Random random = new Random(seed);
+        for (int i = 0; i < eventCount; i++) {
+            allDays[i] = random.nextInt(100) < allDayPercent;
+            int start = (7 * 4 + random.nextInt(15 * 4)) * 15;
+            int duration = durationMinutes[random.nextInt(durationMinutes.length)];
+            startMinutes[i] = allDays[i] ? 0 : start;
+            finishMinutes[i] = allDays[i] ? 0 : (start + duration) % DialAngles.MINUTES_IN_DAY;
+            begins[i] = dayStart + TimeUnit.MINUTES.toMillis(startMinutes[i]);
+            ends[i] = begins[i] + TimeUnit.MINUTES.toMillis(allDays[i] ? DialAngles.MINUTES_IN_DAY : duration);
+            durations[i] = random.nextInt(4) == 0 ? "PT" + duration + "M"
+                    : commonDurations[random.nextInt(commonDurations.length)];
+
+            StringBuilder title = new StringBuilder();
+            int wordCount = 1 + random.nextInt(6);
+            for (int j = 0; j < wordCount; j++) {
+                if (j > 0) {
+                    title.append(' ');
+                }
+                title.append(words[random.nextInt(words.length)]);
+            }
+            titles[i] = title.toString();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean isAllDay(int index) {
+        return allDays[index];
+    }
+
+    @Override
+    public int getStartMinuteOfDay(int index) {
+        return startMinutes[index];
+    }
+
+    @Override
+    public int getFinishMinuteOfDay(int index) {
+        return finishMinutes[index];
+    }
+
+    String getTitle(int index) {
+        return titles[index];
+    }
+
+    String getDuration(int index) {
+        return durations[index];
+    }
+
+    long getBegin(int index) {
+        return begins[index];
+    }
+
+    long getEnd(int index) {
+        return ends[index];
+    }
+}
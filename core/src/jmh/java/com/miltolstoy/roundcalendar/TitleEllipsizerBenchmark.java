@@ -0,0 +1,57 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Title truncation to the dial radius. Text is measured with fixed character advance, as a monospace font would be,
+// so only truncation logic is measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TitleEllipsizerBenchmark {
+
+    private static final float charWidth = 14;
+    private static final float maxWidth = 360;
+
+    private static final TitleEllipsizer.TextMeasurer measurer = new TitleEllipsizer.TextMeasurer() {
+        @Override
+        public float measureText(String text) {
+            return text.length() * charWidth;
+        }
+
+        @Override
+        public int breakText(String text, float maxWidth) {
+            return Math.min(text.length(), (int) (maxWidth / charWidth));
+        }
+    };
+
+    @Benchmark
+    public void ellipsizeTitles(DayState state, Blackhole blackhole) {
+        SyntheticDay day = state.day;
+        for (int i = 0; i < day.getSize(); i++) {
+            blackhole.consume(TitleEllipsizer.ellipsize(day.getTitle(i), measurer, maxWidth));
+        }
+    }
+}
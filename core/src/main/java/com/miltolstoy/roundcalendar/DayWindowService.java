@@ -0,0 +1,179 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+
+
+// Bounds of local days and zone offsets inside them, computed once per day and zone. A day keeps its start offset
+// and, for DST change days, the transition moment with the offset after it, so conversions of moments inside the
+// day are plain arithmetic. The last used day is checked first: events of a displayed day hit it almost always.
+// Must be invalidated when system time zone or time is changed.
+class DayWindowService {
+
+    static class Day {
+        @Getter private final long start;
+        @Getter private final long end;
+        @Getter private final int dayOfMonth;
+        private final long epochDay;
+        private final int startOffset;
+        private final long transition;
+        private final int transitionOffset;
+
+        private Day(long epochDay, long start, long end, int dayOfMonth, int startOffset, long transition,
+                    int transitionOffset) {
+            this.epochDay = epochDay;
+            this.start = start;
+            this.end = end;
+            this.dayOfMonth = dayOfMonth;
+            this.startOffset = startOffset;
+            this.transition = transition;
+            this.transitionOffset = transitionOffset;
+        }
+
+        boolean contains(long milliSeconds) {
+            return milliSeconds >= start && milliSeconds < end;
+        }
+
+        int getOffset(long milliSeconds) {
+            return milliSeconds < transition ? startOffset : transitionOffset;
+        }
+
+        // Local wall-clock minute of the moment inside this day
+        int toMinuteOfDay(long milliSeconds) {
+            long millisOfDay = (milliSeconds + getOffset(milliSeconds)) % dayMillis;
+            if (millisOfDay < 0) {
+                millisOfDay += dayMillis;
+            }
+            return (int) (millisOfDay / minuteMillis);
+        }
+    }
+
+    private static final long dayMillis = TimeUnit.DAYS.toMillis(1);
+    private static final long minuteMillis = TimeUnit.MINUTES.toMillis(1);
+    private static final int maxCachedDays = 32;
+
+    private static final Map<Long, Day> days = new LinkedHashMap<Long, Day>(maxCachedDays, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Day> eldest) {
+            return size() > maxCachedDays;
+        }
+    };
+    private static TimeZone zone = null;
+    private static volatile Day lastDay = null;
+
+    @Getter private static volatile long computedDaysCount = 0;
+
+    static synchronized void invalidate() {
+        days.clear();
+        zone = null;
+        lastDay = null;
+    }
+
+    static Day getDay(int daysShift) {
+        Day today = getDayOf(System.currentTimeMillis());
+        if (daysShift == 0) {
+            return today;
+        }
+        return getDayByEpochDay(today.epochDay + daysShift);
+    }
+
+    static long getDayStart(int daysShift) {
+        return getDay(daysShift).getStart();
+    }
+
+    static Day getDayOf(long milliSeconds) {
+        Day day = lastDay;
+        if (day != null && day.contains(milliSeconds)) {
+            return day;
+        }
+        synchronized (DayWindowService.class) {
+            long localMillis = milliSeconds + getZone().getOffset(milliSeconds);
+            long epochDay = localMillis / dayMillis;
+            if (localMillis % dayMillis < 0) {
+                epochDay--;
+            }
+            day = getDayByEpochDay(epochDay);
+            lastDay = day;
+            return day;
+        }
+    }
+
+    static int toMinuteOfDay(long milliSeconds) {
+        return getDayOf(milliSeconds).toMinuteOfDay(milliSeconds);
+    }
+
+    static int getDayOfMonth(long milliSeconds) {
+        return getDayOf(milliSeconds).getDayOfMonth();
+    }
+
+    private static synchronized Day getDayByEpochDay(long epochDay) {
+        Day day = days.get(epochDay);
+        if (day == null) {
+            day = computeDay(getZone(), epochDay);
+            days.put(epochDay, day);
+            computedDaysCount++;
+        }
+        return day;
+    }
+
+    private static TimeZone getZone() {
+        if (zone == null) {
+            zone = TimeZone.getDefault();
+        }
+        return zone;
+    }
+
+    private static Day computeDay(TimeZone timeZone, long epochDay) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        utc.setTimeInMillis(epochDay * dayMillis);
+
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.clear();
+        calendar.set(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH), utc.get(Calendar.DAY_OF_MONTH), 0, 0, 0);
+        long start = calendar.getTimeInMillis();
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        long end = calendar.getTimeInMillis();
+
+        int startOffset = timeZone.getOffset(start);
+        int endOffset = timeZone.getOffset(end - 1);
+        long transition = Long.MAX_VALUE;
+        if (startOffset != endOffset) {
+            // First moment with the new offset
+            long low = start;
+            long high = end - 1;
+            while (low < high) {
+                long middle = low + (high - low) / 2;
+                if (timeZone.getOffset(middle) == startOffset) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            transition = low;
+        }
+        return new Day(epochDay, start, end, utc.get(Calendar.DAY_OF_MONTH), startOffset, transition, endOffset);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+// Angle math of the 24-hour dial. Degrees go clockwise: hand degrees count from the top (midnight), event degrees
+// are Canvas arc degrees, counted from 3 o'clock, i.e. hand degrees minus 90.
+class DialAngles {
+
+    static final int MINUTES_IN_DAY = 24 * 60;
+
+    // Sweep of an event with zero duration, drawn as a thin line
+    private static final float zeroSweep = (float) 0.001;
+
+    static float minuteOfDayToDegree(int minuteOfDay) {
+        return (minuteOfDay / 60 + (float) (minuteOfDay % 60) / 60) * 15 - 90;
+    }
+
+    static float minuteOfDayToHandDegree(int minuteOfDay) {
+        float hours = minuteOfDay / 60;
+        float minutes = minuteOfDay % 60;
+        return (hours + minutes / 60) * 15;
+    }
+
+    static float eventSweep(float startDegree, float endDegree) {
+        if (startDegree == endDegree) {
+            return zeroSweep;
+        }
+        float sweepDegree = endDegree - startDegree;
+        if (sweepDegree < -180) {
+            sweepDegree += 360;
+        }
+        return sweepDegree;
+    }
+
+    // Offsets of the point at hand degree on a circle from the circle center, y goes down
+    static double concentricDx(double degree, float radius) {
+        return radius * Math.sin(degree * Math.PI / 180);
+    }
+
+    static double concentricDy(double degree, float radius) {
+        return -radius * Math.cos(degree * Math.PI / 180);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+    RFC 5545 duration value:
+    dur-value  = (["+"] / "-") "P" (dur-date / dur-time / dur-week)
+    dur-date   = dur-day [dur-time]
+    dur-time   = "T" (dur-hour / dur-minute / dur-second)
+    dur-week   = 1*DIGIT "W"
+    dur-hour   = 1*DIGIT "H" [dur-minute]
+    dur-minute = 1*DIGIT "M" [dur-second]
+    dur-second = 1*DIGIT "S"
+    dur-day    = 1*DIGIT "D"
+
+    Calendar providers also store values like "P3600S" or "P1W2D", so the parser is lenient: "T" may be omitted and
+    weeks may be combined with other components. Components must still go in W, D, H, M, S order, each at most once.
+*/
+class Rfc5545Duration {
+
+    private static final int cacheCapacity = 64;
+    private static final Map<String, Long> cache = new LinkedHashMap<String, Long>(cacheCapacity, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > cacheCapacity;
+        }
+    };
+
+    // component ranks, components must appear in increasing rank order
+    private static final int rankWeek = 1;
+    private static final int rankDay = 2;
+    private static final int rankHour = 3;
+    private static final int rankMinute = 4;
+    private static final int rankSecond = 5;
+
+    static long toMilliSeconds(String duration) throws IllegalArgumentException {
+        if (duration == null || duration.length() <= 1) {
+            throw new IllegalArgumentException("Duration should be not empty");
+        }
+
+        synchronized (cache) {
+            Long cached = cache.get(duration);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long milliSeconds = parse(duration);
+        synchronized (cache) {
+            cache.put(duration, milliSeconds);
+        }
+        return milliSeconds;
+    }
+
+    private static long parse(String duration) throws IllegalArgumentException {
+        final int length = duration.length();
+        int position = 0;
+        boolean negative = false;
+        char sign = duration.charAt(0);
+        if (sign == '+' || sign == '-') {
+            negative = (sign == '-');
+            position++;
+        }
+        if (position >= length || duration.charAt(position) != 'P') {
+            throw new IllegalArgumentException("Duration string should start with \"P\" prefix");
+        }
+        position++;
+
+        long milliSeconds = 0;
+        int lastRank = 0;
+        boolean timePart = false;
+        boolean componentAfterTime = false;
+        while (position < length) {
+            char symbol = duration.charAt(position);
+            if (symbol == 'T') {
+                if (timePart || lastRank >= rankHour) {
+                    throw malformed(duration);
+                }
+                timePart = true;
+                position++;
+                continue;
+            }
+
+            long count = 0;
+            int digitsStart = position;
+            while (position < length && isDigit(duration.charAt(position))) {
+                count = count * 10 + (duration.charAt(position) - '0');
+                if (count > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Duration component is too large: \"" + duration + "\"");
+                }
+                position++;
+            }
+            if (position == digitsStart || position == length) {
+                throw malformed(duration);
+            }
+
+            int rank = rankOf(duration.charAt(position));
+            if (rank <= lastRank || (timePart && rank < rankHour)) {
+                throw malformed(duration);
+            }
+            milliSeconds += count * rankMillis(rank);
+            lastRank = rank;
+            componentAfterTime = timePart;
+            position++;
+        }
+
+        if (lastRank == 0 || (timePart && !componentAfterTime)) {
+            throw malformed(duration);
+        }
+        return negative ? -milliSeconds : milliSeconds;
+    }
+
+    private static boolean isDigit(char symbol) {
+        return symbol >= '0' && symbol <= '9';
+    }
+
+    private static int rankOf(char dimension) {
+        switch (dimension) {
+            case 'W':
+                return rankWeek;
+            case 'D':
+                return rankDay;
+            case 'H':
+                return rankHour;
+            case 'M':
+                return rankMinute;
+            case 'S':
+                return rankSecond;
+            default:
+                throw new IllegalArgumentException("Unknown dimension: " + dimension);
+        }
+    }
+
+    private static long rankMillis(int rank) {
+        switch (rank) {
+            case rankWeek:
+                return TimeUnit.DAYS.toMillis(7);
+            case rankDay:
+                return TimeUnit.DAYS.toMillis(1);
+            case rankHour:
+                return TimeUnit.HOURS.toMillis(1);
+            case rankMinute:
+                return TimeUnit.MINUTES.toMillis(1);
+            default:
+                return TimeUnit.SECONDS.toMillis(1);
+        }
+    }
+
+    private static IllegalArgumentException malformed(String duration) {
+        return new IllegalArgumentException("Malformed duration string: \"" + duration + "\"");
+    }
+}
@@ -0,0 +1,81 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Events with equal start and finish time are drawn as one sector with joined titles
+class SameTimeEvents {
+
+    // Groups events with equal start and finish time and marks them in groupedEvents. Group is led by the first
+    // non-all-day event of its time, groups are ordered by their leaders. Runs in a single pass over events.
+    static List<int[]> find(EventTimes events, boolean[] groupedEvents) {
+        Map<Integer, Bucket> buckets = new HashMap<>();
+        List<Bucket> ledBuckets = new ArrayList<>();
+        for (int i = 0; i < events.getSize(); i++) {
+            int key = events.getStartMinuteOfDay(i) * DialAngles.MINUTES_IN_DAY + events.getFinishMinuteOfDay(i);
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket();
+                buckets.put(key, bucket);
+            }
+            bucket.add(i);
+            if (bucket.leader < 0 && !events.isAllDay(i)) {
+                bucket.leader = i;
+                ledBuckets.add(bucket);
+            }
+        }
+
+        List<int[]> result = new ArrayList<>();
+        for (Bucket bucket : ledBuckets) {
+            if (bucket.count < 2) {
+                continue;
+            }
+            int[] sameTimeEvents = new int[bucket.count];
+            sameTimeEvents[0] = bucket.leader;
+            int groupSize = 1;
+            for (int i = 0; i < bucket.count; i++) {
+                int index = bucket.indexes[i];
+                if (index != bucket.leader) {
+                    sameTimeEvents[groupSize++] = index;
+                }
+                groupedEvents[index] = true;
+            }
+            result.add(sameTimeEvents);
+        }
+        return result;
+    }
+
+    private static class Bucket {
+        private int[] indexes = new int[1];
+        private int count = 0;
+        private int leader = -1;
+
+        void add(int index) {
+            if (count == indexes.length) {
+                indexes = Arrays.copyOf(indexes, count * 2);
+            }
+            indexes[count++] = index;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+// Longest title prefix which fits max width together with the ellipsis. Text measuring is left to the caller, so
+// the truncation itself does not depend on the graphics library.
+class TitleEllipsizer {
+
+    static final String ELLIPSIS = "...";
+
+    interface TextMeasurer {
+        float measureText(String text);
+
+        // Count of leading characters which fit max width
+        int breakText(String text, float maxWidth);
+    }
+
+    static String ellipsize(String title, TextMeasurer measurer, float maxWidth) {
+        if (measurer.measureText(title) <= maxWidth) {
+            return title;
+        }
+        float availableWidth = maxWidth - measurer.measureText(ELLIPSIS);
+        if (availableWidth <= 0) {
+            return ELLIPSIS;
+        }
+        int length = measurer.breakText(title, availableWidth);
+        return title.substring(0, length) + ELLIPSIS;
+    }
+}
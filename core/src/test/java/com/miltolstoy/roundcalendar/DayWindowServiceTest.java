@@ -0,0 +1,127 @@
+/*
+Round Calendar
+Copyright (C) 2020 Mil Tolstoy <miltolstoy@gmail.com>
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.miltolstoy.roundcalendar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class DayWindowServiceTest {
+
+    private static final long minuteMillis = TimeUnit.MINUTES.toMillis(1);
+    private static final long hourMillis = TimeUnit.HOURS.toMillis(1);
+    private static final long dayMillis = TimeUnit.DAYS.toMillis(1);
+
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        DayWindowService.invalidate();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+        DayWindowService.invalidate();
+    }
+
+    @Test
+    public void dayBoundsMatchCalendar() {
+        long day = getTime(2020, Calendar.MARCH, 10, 15, 30);
+        DayWindowService.Day window = DayWindowService.getDayOf(day);
+        assertEquals(window.getStart(), getTime(2020, Calendar.MARCH, 10, 0, 0));
+        assertEquals(window.getEnd(), getTime(2020, Calendar.MARCH, 11, 0, 0));
+        assertEquals(window.getDayOfMonth(), 10);
+    }
+
+    @Test
+    public void daylightSavingDays() {
+        DayWindowService.Day springDay = DayWindowService.getDayOf(getTime(2020, Calendar.MARCH, 29, 12, 0));
+        assertEquals(springDay.getEnd() - springDay.getStart(), 23 * hourMillis);
+        assertEquals(springDay.toMinuteOfDay(getTime(2020, Calendar.MARCH, 29, 1, 59)), 60 + 59);
+        assertEquals(springDay.toMinuteOfDay(getTime(2020, Calendar.MARCH, 29, 3, 0)), 3 * 60);
+
+        DayWindowService.Day autumnDay = DayWindowService.getDayOf(getTime(2020, Calendar.OCTOBER, 25, 12, 0));
+        assertEquals(autumnDay.getEnd() - autumnDay.getStart(), 25 * hourMillis);
+        assertEquals(autumnDay.toMinuteOfDay(getTime(2020, Calendar.OCTOBER, 25, 23, 0)), 23 * 60);
+    }
+
+    @Test
+    public void minuteOfDayMatchesCalendar() {
+        Random random = new Random(42);
+        long from = getTime(2020, Calendar.JANUARY, 1, 0, 0);
+        Calendar calendar = Calendar.getInstance();
+        for (int i = 0; i < 10000; i++) {
+            long time = from + (long) (random.nextDouble() * 366 * dayMillis);
+            calendar.setTimeInMillis(time);
+            assertEquals(DayWindowService.toMinuteOfDay(time),
+                    calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE));
+            assertEquals(DayWindowService.getDayOfMonth(time), calendar.get(Calendar.DAY_OF_MONTH));
+        }
+    }
+
+    @Test
+    public void dayIsComputedOnce() {
+        long time = getTime(2020, Calendar.MAY, 5, 8, 0);
+        DayWindowService.getDayOf(time);
+        long computed = DayWindowService.getComputedDaysCount();
+        for (int i = 0; i < 100; i++) {
+            DayWindowService.toMinuteOfDay(time + i * minuteMillis);
+        }
+        assertEquals(DayWindowService.getComputedDaysCount(), computed);
+    }
+
+    @Test
+    public void shiftedDays() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH),
+                0, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, -40);
+        for (int shift = -40; shift <= 40; shift++) {
+            assertEquals(DayWindowService.getDayStart(shift), calendar.getTimeInMillis());
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    @Test
+    public void invalidatedOnZoneChange() {
+        long time = getTime(2020, Calendar.MAY, 5, 8, 0);
+        assertEquals(DayWindowService.toMinuteOfDay(time), 8 * 60);
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DayWindowService.invalidate();
+        assertEquals(DayWindowService.toMinuteOfDay(time), 6 * 60);
+    }
+
+    private static long getTime(int year, int month, int day, int hours, int minutes) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(year, month, day, hours, minutes, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
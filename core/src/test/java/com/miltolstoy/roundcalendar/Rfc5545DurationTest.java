@@ -18,8 +18,6 @@ along with this program.  If not, see <http://www.gnu.org/licenses/>.
 
 package com.miltolstoy.roundcalendar;
 
-import android.text.format.DateUtils;
-
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
@@ -27,12 +25,19 @@ import org.junit.runners.Parameterized;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 
 @RunWith(Enclosed.class)
 public class Rfc5545DurationTest {
 
+    private static final long secondMillis = TimeUnit.SECONDS.toMillis(1);
+    private static final long minuteMillis = TimeUnit.MINUTES.toMillis(1);
+    private static final long hourMillis = TimeUnit.HOURS.toMillis(1);
+    private static final long dayMillis = TimeUnit.DAYS.toMillis(1);
+    private static final long weekMillis = TimeUnit.DAYS.toMillis(7);
+
     @RunWith(Parameterized.class)
     public static class DurationToMillisPositive {
 
@@ -45,16 +50,23 @@ public class Rfc5545DurationTest {
         @Parameterized.Parameters
         public static Collection parameters() {
             return Arrays.asList(new Object[][] {
-                    {"P2S", 2 * DateUtils.SECOND_IN_MILLIS},
-                    {"P3M", 3 * DateUtils.MINUTE_IN_MILLIS},
-                    {"P4H", 4 * DateUtils.HOUR_IN_MILLIS},
-                    {"P5D", 5 * DateUtils.DAY_IN_MILLIS},
-                    {"P6W", 6 * DateUtils.WEEK_IN_MILLIS},
-                    {"P11W12D13H14M15S", 11 * DateUtils.WEEK_IN_MILLIS + 12 * DateUtils.DAY_IN_MILLIS +
-                            13 * DateUtils.HOUR_IN_MILLIS + 14 * DateUtils.MINUTE_IN_MILLIS + 15 * DateUtils.SECOND_IN_MILLIS},
-                    {"P15DT5H0M20S", 15 * DateUtils.DAY_IN_MILLIS + 5 * DateUtils.HOUR_IN_MILLIS +
-                            20 * DateUtils.SECOND_IN_MILLIS}, // rfc example
-                    {"P7W", 7 * DateUtils.WEEK_IN_MILLIS}, // rfc example
+                    {"P2S", 2 * secondMillis},
+                    {"P3M", 3 * minuteMillis},
+                    {"P4H", 4 * hourMillis},
+                    {"P5D", 5 * dayMillis},
+                    {"P6W", 6 * weekMillis},
+                    {"P11W12D13H14M15S", 11 * weekMillis + 12 * dayMillis +
+                            13 * hourMillis + 14 * minuteMillis + 15 * secondMillis},
+                    {"P15DT5H0M20S", 15 * dayMillis + 5 * hourMillis +
+                            20 * secondMillis}, // rfc example
+                    {"P7W", 7 * weekMillis}, // rfc example
+                    {"PT1H", hourMillis},
+                    {"PT1H30M", hourMillis + 30 * minuteMillis},
+                    {"P1DT12H", dayMillis + 12 * hourMillis},
+                    {"P3600S", 3600 * secondMillis},
+                    {"PT0S", 0},
+                    {"+P1D", dayMillis},
+                    {"-PT15M", -15 * minuteMillis}, // rfc example
             });
         }
 
@@ -78,7 +90,16 @@ public class Rfc5545DurationTest {
                     "",
                     "1W",
                     "P",
-                    "P1E"
+                    "P1E",
+                    "-P",
+                    "PT",
+                    "P1DT",
+                    "PT1D",
+                    "P1H2D",
+                    "P1D1D",
+                    "P1HT2M",
+                    "P-1D",
+                    "P1"
             );
         }
 